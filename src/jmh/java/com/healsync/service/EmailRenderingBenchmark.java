@@ -0,0 +1,74 @@
+package com.healsync.service;
+
+import com.healsync.config.EmailTemplateConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render time and allocation per confirmation email: the cached Thymeleaf
+ * templates EmailService uses now against the String.format code they
+ * replaced. Run with {@code mvn -Pjmh test-compile exec:exec}; the profile
+ * passes {@code -prof gc}, so gc.alloc.rate.norm reports bytes per email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailRenderingBenchmark {
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter
+            .ofPattern("MMM dd, yyyy 'at' h:mm a", Locale.ENGLISH);
+
+    private static final String PATIENT = "John Doe";
+    private static final String DOCTOR = "Emily Smith";
+    private static final String DATE_TIME = "2026-10-12T10:30";
+
+    private TemplateEngine templateEngine;
+
+    @Setup
+    public void setUp() {
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(new EmailTemplateConfig().emailTemplateResolver());
+        templateEngine = engine;
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return LegacyEmailFormat.appointmentConfirmed(PATIENT, DOCTOR, DATE_TIME);
+    }
+
+    // Same steps as EmailService.sendAppointmentConfirmed and buildMessage: body, then the layout around it
+    @Benchmark
+    public String thymeleaf() {
+        String body = render("email/appointment-confirmed", Map.of(
+                "patientName", PATIENT,
+                "doctorName", "Dr. " + DOCTOR,
+                "dateTime", LocalDateTime.parse(DATE_TIME).format(DATE_TIME_FORMAT)));
+        return render("email/layout", Map.of("title", "Appointment Confirmed", "body", body));
+    }
+
+    private String render(String template, Map<String, Object> variables) {
+        Context context = new Context(Locale.ENGLISH);
+        context.setVariables(variables);
+        return templateEngine.process(template, context);
+    }
+}
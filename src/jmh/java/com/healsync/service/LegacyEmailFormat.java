@@ -0,0 +1,125 @@
+package com.healsync.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * The String.format rendering EmailService used before the Thymeleaf
+ * templates, kept verbatim as the benchmark baseline. Only the confirmation
+ * email and the shared layout are needed.
+ */
+final class LegacyEmailFormat {
+
+    private LegacyEmailFormat() {
+    }
+
+    static String appointmentConfirmed(String patientName, String doctorName, String dateTime) {
+        String formattedDate = formatDateTime(dateTime);
+        String body = String.format(
+                """
+                        <p>Dear <strong>%s</strong>,</p>
+                        <p>Good news! Your appointment has been officially confirmed.</p>
+
+                        <!-- Appointment Details Card -->
+                        <div style="background-color: #ffffff; border: 1px solid #d1fae5; border-radius: 8px; padding: 20px; margin: 25px 0; box-shadow: 0 2px 4px rgba(0,0,0,0.05);">
+                            <h3 style="margin-top: 0; color: #111827; border-bottom: 2px solid #059669; padding-bottom: 10px; display: inline-block;">Appointment Details</h3>
+                            <table style="width: 100%%; border-collapse: collapse; margin-top: 10px;">
+                                <tr>
+                                    <td style="padding: 8px 0; color: #6b7280; font-weight: bold; width: 120px;">Doctor:</td>
+                                    <td style="padding: 8px 0; color: #111827;">%s</td>
+                                </tr>
+                                <tr>
+                                    <td style="padding: 8px 0; color: #6b7280; font-weight: bold;">Date & Time:</td>
+                                    <td style="padding: 8px 0; color: #111827;">%s</td>
+                                </tr>
+                                <tr>
+                                    <td style="padding: 8px 0; color: #6b7280; font-weight: bold;">Status:</td>
+                                    <td style="padding: 8px 0;"><span style="background-color: #ecfdf5; color: #047857; padding: 4px 10px; border-radius: 12px; font-weight: bold; font-size: 12px; border: 1px solid #a7f3d0;">CONFIRMED</span></td>
+                                </tr>
+                            </table>
+                        </div>
+
+                        <!-- Professional Guidance -->
+                        <div style="background-color: #f0fdf4; padding: 15px; border-radius: 6px; margin-bottom: 25px; border-left: 4px solid #059669;">
+                            <p style="margin: 0 0 10px 0; font-weight: bold; color: #065f46;">What to expect:</p>
+                            <ul style="margin: 0; padding-left: 20px; color: #1f2937;">
+                                <li style="margin-bottom: 5px;">Please arrive <strong>10 minutes early</strong>.</li>
+                                <li style="margin-bottom: 5px;">Bring previous medical reports if available.</li>
+                                <li style="margin-bottom: 5px;">Contact the clinic if rescheduling is required.</li>
+                            </ul>
+                        </div>
+
+                        <div style="text-align: center; margin: 30px 0;">
+                            <a href="http://localhost:8080/patient/appointments" style="background-color: #059669; color: white; padding: 12px 24px; text-decoration: none; border-radius: 6px; font-weight: bold; font-size: 16px; display: inline-block;">View Appointment</a>
+                        </div>
+                        """,
+                patientName, ensureDoctorTitle(doctorName), formattedDate);
+        return createEmailTemplate("Appointment Confirmed", body);
+    }
+
+    private static String createEmailTemplate(String title, String bodyContent) {
+        return String.format(
+                """
+                        <!DOCTYPE html>
+                        <html>
+                        <head>
+                            <meta charset="UTF-8">
+                            <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                            <title>%s</title>
+                            <style>
+                                body { margin: 0; padding: 0; font-family: 'Helvetica Neue', Helvetica, Arial, sans-serif; background-color: #f3f4f6; color: #374151; }
+                                .container { max-width: 600px; margin: 40px auto; background-color: #ffffff; border-radius: 12px; overflow: hidden; box-shadow: 0 10px 15px -3px rgba(0, 0, 0, 0.1), 0 4px 6px -2px rgba(0, 0, 0, 0.05); }
+                                .header { background: linear-gradient(135deg, #10B981 0%%, #047857 100%%); color: white; padding: 30px 0; text-align: center; }
+                                .header h1 { margin: 0; font-size: 28px; font-weight: 800; letter-spacing: -0.5px; }
+                                .content { padding: 40px 30px; line-height: 1.7; font-size: 16px; }
+                                .footer { background-color: #f9fafb; padding: 30px; text-align: center; color: #9ca3af; font-size: 13px; border-top: 1px solid #e5e7eb; }
+                                .footer p { margin: 5px 0; }
+                                @media only screen and (max-width: 600px) {
+                                    .container { width: 100%% !important; margin: 0 !important; border-radius: 0; }
+                                    .content { padding: 20px; }
+                                }
+                            </style>
+                        </head>
+                        <body>
+                            <div class="container">
+                                <div class="header">
+                                    <h1>🩺 HealSync</h1>
+                                </div>
+                                <div class="content">
+                                    <!-- Dynamic Body -->
+                                    %s
+                                </div>
+                                <div class="footer">
+                                    <p>&copy; 2026 HealSync Healthcare Platform. All rights reserved.</p>
+                                    <div style="width: 40px; height: 2px; background-color: #e5e7eb; margin: 15px auto;"></div>
+                                    <p>This is an automated email — please do not reply.</p>
+                                </div>
+                            </div>
+                        </body>
+                        </html>
+                        """,
+                title, bodyContent);
+    }
+
+    private static String formatDateTime(String dateTimeStr) {
+        try {
+            LocalDateTime dateTime = LocalDateTime.parse(dateTimeStr);
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' h:mm a", Locale.ENGLISH);
+            return dateTime.format(formatter);
+        } catch (Exception e) {
+            // Fallback if parsing fails
+            return dateTimeStr;
+        }
+    }
+
+    private static String ensureDoctorTitle(String name) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("Doctor")) {
+            return "Doctor"; // Basic Fallback
+        }
+        if (!name.toLowerCase().startsWith("dr.")) {
+            return "Dr. " + name;
+        }
+        return name;
+    }
+}
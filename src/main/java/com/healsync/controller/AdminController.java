@@ -1,21 +1,97 @@
 package com.healsync.controller;
 
+import com.healsync.entity.AnnouncementJob;
+import com.healsync.service.AnnouncementService;
 import com.healsync.service.AuthService;
+import com.healsync.service.EmailDeadLetterService;
+import com.healsync.service.UserPrincipalCache;
+import com.healsync.dto.AnnouncementRequest;
 import com.healsync.dto.CreateDoctorRequest;
+import com.healsync.dto.UserStatusRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
 public class AdminController {
 
     private final AuthService authService;
+    private final EmailDeadLetterService emailDeadLetterService;
+    private final AnnouncementService announcementService;
+    private final UserPrincipalCache userPrincipalCache;
 
     @PostMapping("/doctors")
     public ResponseEntity<?> createDoctor(@RequestBody CreateDoctorRequest request) {
         authService.createDoctor(request);
         return ResponseEntity.ok().body("{\"message\": \"Doctor created successfully\"}");
     }
+
+    @PutMapping("/users/{id}/status")
+    public ResponseEntity<?> updateUserStatus(@PathVariable Long id, @Valid @RequestBody UserStatusRequest request,
+            BindingResult result) {
+
+        if (result.hasErrors()) {
+            return ResponseEntity.badRequest().body(result.getAllErrors());
+        }
+
+        authService.updateUserStatus(id, request.getStatus());
+        return ResponseEntity.ok(Map.of("message", "User status updated"));
+    }
+
+    @GetMapping("/email-dead-letters")
+    public ResponseEntity<?> getEmailDeadLetters(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(emailDeadLetterService.getPending(after, limit));
+    }
+
+    @PostMapping("/email-dead-letters/{id}/replay")
+    public ResponseEntity<?> replayEmailDeadLetter(@PathVariable Long id) {
+        emailDeadLetterService.replay(id);
+        return ResponseEntity.ok(Map.of("message", "Email queued for delivery"));
+    }
+
+    @PostMapping("/email-dead-letters/replay")
+    public ResponseEntity<?> replayAllEmailDeadLetters() {
+        int replayed = emailDeadLetterService.replayAll();
+        return ResponseEntity.ok(Map.of("replayed", replayed));
+    }
+
+    // Queues a clinic-wide email; delivery runs in the background and can be followed by polling the job
+    @PostMapping("/announcements")
+    public ResponseEntity<?> createAnnouncement(@Valid @RequestBody AnnouncementRequest request,
+            BindingResult result, Authentication authentication) {
+
+        if (result.hasErrors()) {
+            return ResponseEntity.badRequest().body(result.getAllErrors());
+        }
+
+        Long adminUserId = userPrincipalCache.getByEmail(authentication.getName()).userId();
+        AnnouncementJob job = announcementService.createJob(request, adminUserId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/announcements")
+    public ResponseEntity<?> getAnnouncements() {
+        return ResponseEntity.ok(announcementService.getRecentJobs());
+    }
+
+    @GetMapping("/announcements/{id}")
+    public ResponseEntity<?> getAnnouncement(@PathVariable Long id) {
+        return ResponseEntity.ok(announcementService.getJob(id));
+    }
+
+    @PostMapping("/announcements/{id}/cancel")
+    public ResponseEntity<?> cancelAnnouncement(@PathVariable Long id) {
+        announcementService.cancelJob(id);
+        return ResponseEntity.ok(Map.of("message", "Announcement cancelled"));
+    }
 }
@@ -2,16 +2,31 @@ package com.healsync.controller;
 
 import com.healsync.dto.AppointmentCancelRequest;
 import com.healsync.dto.AppointmentDoctorNotesRequest;
+import com.healsync.dto.AppointmentPageDTO;
 import com.healsync.dto.AppointmentRequest;
 import com.healsync.dto.AppointmentStatusRequest;
+import com.healsync.dto.BatchAppointmentRequest;
+import com.healsync.dto.BatchBookingResponse;
+import com.healsync.dto.SlotHoldDTO;
+import com.healsync.dto.SlotHoldRequest;
 import com.healsync.entity.Appointment;
 import com.healsync.enums.AppointmentStatus;
 import com.healsync.service.AppointmentService;
+import com.healsync.service.AppointmentStreamHub;
+import com.healsync.service.BatchBookingService;
+import com.healsync.service.BookingAdmissionQueue;
+import com.healsync.service.BookingLockService;
+import com.healsync.service.SlotHoldService;
+import com.healsync.service.UserPrincipalCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,6 +37,12 @@ import java.util.List;
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
+    private final BatchBookingService batchBookingService;
+    private final SlotHoldService slotHoldService;
+    private final BookingAdmissionQueue bookingAdmissionQueue;
+    private final BookingLockService bookingLockService;
+    private final AppointmentStreamHub appointmentStreamHub;
+    private final UserPrincipalCache userPrincipalCache;
 
     @PostMapping("/book")
     public ResponseEntity<?> bookAppointment(@Valid @RequestBody AppointmentRequest request, BindingResult result) {
@@ -33,18 +54,80 @@ public class AppointmentController {
         LocalDateTime startDateTime = LocalDateTime.parse(request.getStart());
         LocalDateTime endDateTime = LocalDateTime.parse(request.getEnd());
 
-        Appointment appointment = appointmentService.bookAppointment(
+        if (bookingAdmissionQueue.isEnabled()) {
+            // Async mode: queue the request and let the client poll the ticket
+            return bookingAdmissionQueue.submit(request)
+                    .<ResponseEntity<?>>map(ticket -> ResponseEntity.accepted().body(ticket))
+                    .orElseGet(() -> ResponseEntity.status(503).header("Retry-After", "5")
+                            .body("Too many pending bookings for this doctor. Please try again shortly."));
+        }
+
+        Appointment appointment = bookingLockService.retryOnLockFailure(() -> appointmentService.bookAppointment(
                 request.getClinicId(),
                 request.getDoctorId(),
                 request.getPatientId(),
                 startDateTime,
                 endDateTime,
                 request.getReason(),
-                request.getSpecialization());
+                request.getSpecialization()));
 
         return ResponseEntity.ok(appointment);
     }
 
+    @GetMapping("/book/tickets/{ticketId}")
+    public ResponseEntity<?> getBookingTicket(@PathVariable String ticketId) {
+        return bookingAdmissionQueue.getTicket(ticketId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/book/batch")
+    public ResponseEntity<?> bookAppointments(@Valid @RequestBody BatchAppointmentRequest request,
+            BindingResult result) {
+
+        if (result.hasErrors()) {
+            return ResponseEntity.badRequest().body(result.getAllErrors());
+        }
+
+        BatchBookingResponse response = bookingLockService.retryOnLockFailure(
+                () -> batchBookingService.bookBatch(request));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<?> placeHold(@Valid @RequestBody SlotHoldRequest request, BindingResult result,
+            Authentication authentication) {
+
+        if (result.hasErrors()) {
+            return ResponseEntity.badRequest().body(result.getAllErrors());
+        }
+
+        // The holder is always the caller; a patient ID in the body is not trusted
+        Long patientUserId = userPrincipalCache.getByEmail(authentication.getName()).userId();
+        SlotHoldDTO hold = slotHoldService.placeHold(
+                request.getDoctorId(),
+                patientUserId,
+                LocalDateTime.parse(request.getStart()),
+                LocalDateTime.parse(request.getEnd()));
+        return ResponseEntity.ok(hold);
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<?> releaseHold(@PathVariable String holdId, Authentication authentication) {
+        Long patientUserId = userPrincipalCache.getByEmail(authentication.getName()).userId();
+        if (!slotHoldService.releaseHold(holdId, patientUserId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    // EventSource cannot send headers, so the JWT may be passed as ?access_token= on this path only
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(Authentication authentication) {
+        String email = authentication.getName();
+        return appointmentStreamHub.subscribe(userPrincipalCache.getByEmail(email));
+    }
+
     @GetMapping("/doctor/{doctorId}")
     public ResponseEntity<List<Appointment>> getAppointmentsByDoctor(
             @PathVariable Long doctorId,
@@ -61,6 +144,18 @@ public class AppointmentController {
         return ResponseEntity.ok(appointmentService.getAppointmentsByDoctor(doctorId));
     }
 
+    @GetMapping("/doctor/{doctorId}/page")
+    public ResponseEntity<AppointmentPageDTO> getAppointmentPageByDoctor(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(appointmentService.getDoctorAppointmentPage(
+                doctorId, parseStatus(status), from, to, cursor, limit));
+    }
+
     @GetMapping("/patient/{patientId}")
     public ResponseEntity<List<Appointment>> getAppointmentsByPatient(
             @PathVariable Long patientId,
@@ -77,6 +172,18 @@ public class AppointmentController {
         return ResponseEntity.ok(appointmentService.getAppointmentsByPatient(patientId));
     }
 
+    @GetMapping("/patient/{patientId}/page")
+    public ResponseEntity<AppointmentPageDTO> getAppointmentPageByPatient(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(appointmentService.getPatientAppointmentPage(
+                patientId, parseStatus(status), from, to, cursor, limit));
+    }
+
     @PutMapping("/{id}/status")
     public ResponseEntity<Appointment> updateStatus(
             @PathVariable Long id,
@@ -108,4 +215,15 @@ public class AppointmentController {
             @Valid @RequestBody AppointmentDoctorNotesRequest request) {
         return ResponseEntity.ok(appointmentService.updateDoctorNotes(id, request.getDoctorNotes()));
     }
+
+    private AppointmentStatus parseStatus(String status) {
+        if (status == null || status.isEmpty()) {
+            return null;
+        }
+        try {
+            return AppointmentStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid appointment status: " + status);
+        }
+    }
 }
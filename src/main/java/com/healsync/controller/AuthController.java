@@ -2,6 +2,7 @@ package com.healsync.controller;
 
 import com.healsync.dto.AuthResponse;
 import com.healsync.dto.LoginRequest;
+import com.healsync.dto.RefreshTokenRequest;
 import com.healsync.service.AuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -37,6 +38,19 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    // Rotates the refresh token; the one presented cannot be used again
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        AuthResponse response = authService.refresh(request.getRefreshToken());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        authService.logout(request.getRefreshToken());
+        return ResponseEntity.ok().build();
+    }
+
     @GetMapping("/me")
     public ResponseEntity<AuthResponse> getCurrentUser(@AuthenticationPrincipal UserDetails userDetails) {
         AuthResponse response = authService.getCurrentUser(userDetails.getUsername());
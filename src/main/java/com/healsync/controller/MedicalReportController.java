@@ -7,8 +7,10 @@ import com.healsync.repository.*;
 import com.healsync.service.EmailService;
 import com.healsync.service.FileStorageService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -17,6 +19,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/medical-reports")
 @RequiredArgsConstructor
+@Slf4j
 public class MedicalReportController {
 
     private final MedicalReportRepository medicalReportRepository;
@@ -28,6 +31,7 @@ public class MedicalReportController {
 
     @PostMapping
     @PreAuthorize("hasAnyRole('DOCTOR', 'PATIENT')")
+    @Transactional // The outbox email commits with the report and its attachments or not at all
     public ResponseEntity<?> uploadReport(
             @RequestParam("patientId") Long patientId,
             @RequestParam("doctorId") Long doctorId,
@@ -67,13 +71,14 @@ public class MedicalReportController {
                 var user = userRepository.findById(patientProfile.getUserId()).orElse(null);
                 if (user != null) {
                     emailService.sendReportUploaded(
+                            user.getId(),
                             user.getEmail(),
                             patientProfile.getFullName(),
                             title);
                 }
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to queue report email", e);
         }
 
         return ResponseEntity.ok(Map.of("message", "Medical report uploaded", "id", savedReport.getId()));
@@ -0,0 +1,55 @@
+package com.healsync.controller;
+
+import com.healsync.dto.NotificationReadRequest;
+import com.healsync.service.NotificationService;
+import com.healsync.service.UserPrincipalCache;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+public class NotificationController {
+
+    private final NotificationService notificationService;
+    private final UserPrincipalCache userPrincipalCache;
+
+    @GetMapping
+    public ResponseEntity<?> getInbox(
+            Authentication authentication,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(notificationService.getInbox(currentUserId(authentication), cursor, limit));
+    }
+
+    @GetMapping("/unread-count")
+    public ResponseEntity<?> getUnreadCount(Authentication authentication) {
+        long count = notificationService.getUnreadCount(currentUserId(authentication));
+        return ResponseEntity.ok(Map.of("unreadCount", count));
+    }
+
+    @PutMapping("/read")
+    public ResponseEntity<?> markRead(Authentication authentication,
+            @Valid @RequestBody NotificationReadRequest request, BindingResult result) {
+
+        if (result.hasErrors()) {
+            return ResponseEntity.badRequest().body(result.getAllErrors());
+        }
+
+        Long userId = currentUserId(authentication);
+        int updated = notificationService.markRead(userId, request.getIds(), request.isAll());
+        return ResponseEntity.ok(Map.of(
+                "updated", updated,
+                "unreadCount", notificationService.getUnreadCount(userId)));
+    }
+
+    private Long currentUserId(Authentication authentication) {
+        return userPrincipalCache.getByEmail(authentication.getName()).userId();
+    }
+}
@@ -1,6 +1,7 @@
 package com.healsync.controller;
 
 import com.healsync.dto.DoctorSummaryDTO;
+import com.healsync.dto.FreeSlotDTO;
 import com.healsync.entity.Appointment;
 import com.healsync.entity.DoctorProfile;
 import com.healsync.entity.PatientProfile;
@@ -10,10 +11,14 @@ import com.healsync.repository.DoctorProfileRepository;
 import com.healsync.repository.PatientProfileRepository;
 import com.healsync.repository.UserRepository;
 import com.healsync.service.AppointmentService;
+import com.healsync.service.FreeSlotService;
+import com.healsync.service.UserPrincipalCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -27,6 +32,8 @@ public class PatientController {
     private final DoctorProfileRepository doctorProfileRepository;
     private final PatientProfileRepository patientProfileRepository;
     private final AppointmentService appointmentService;
+    private final FreeSlotService freeSlotService;
+    private final UserPrincipalCache userPrincipalCache;
 
     @GetMapping("/doctors")
     public ResponseEntity<List<DoctorSummaryDTO>> getAllDoctors() {
@@ -50,6 +57,16 @@ public class PatientController {
         return ResponseEntity.ok(dtos);
     }
 
+    @GetMapping("/doctors/{doctorId}/free-slots")
+    public ResponseEntity<List<FreeSlotDTO>> getFreeSlots(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusDays(6);
+        return ResponseEntity.ok(freeSlotService.getFreeSlots(doctorId, start, end));
+    }
+
     @GetMapping("/history/{userId}")
     public ResponseEntity<?> getHistory(@PathVariable Long userId) {
         Optional<PatientProfile> profile = patientProfileRepository.findByUserId(userId);
@@ -71,20 +88,18 @@ public class PatientController {
             return ResponseEntity.status(401).build();
         }
 
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found: " + email));
+        Long userId = userPrincipalCache.getByEmail(authentication.getName()).userId();
 
         if (status != null && !status.isEmpty()) {
             try {
                 com.healsync.enums.AppointmentStatus apptStatus = com.healsync.enums.AppointmentStatus
                         .valueOf(status.toUpperCase());
                 return ResponseEntity
-                        .ok(appointmentService.getAppointmentsByPatientAndStatus(user.getId(), apptStatus));
+                        .ok(appointmentService.getAppointmentsByPatientAndStatus(userId, apptStatus));
             } catch (IllegalArgumentException e) {
                 throw new RuntimeException("Invalid appointment status: " + status);
             }
         }
-        return ResponseEntity.ok(appointmentService.getAppointmentsByPatient(user.getId()));
+        return ResponseEntity.ok(appointmentService.getAppointmentsByPatient(userId));
     }
 }
@@ -6,8 +6,10 @@ import com.healsync.entity.PrescriptionItem;
 import com.healsync.repository.*;
 import com.healsync.service.EmailService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
@@ -17,6 +19,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/prescriptions")
 @RequiredArgsConstructor
+@Slf4j
 public class PrescriptionController {
 
     private final PrescriptionRepository prescriptionRepository;
@@ -28,6 +31,7 @@ public class PrescriptionController {
 
     @PostMapping
     @PreAuthorize("hasRole('DOCTOR')")
+    @Transactional // The outbox email commits with the prescription or not at all
     public ResponseEntity<?> createPrescription(@RequestBody PrescriptionRequest request) {
 
         // 1. Create Prescription
@@ -64,6 +68,7 @@ public class PrescriptionController {
                 var user = userRepository.findById(patientProfile.getUserId()).orElse(null);
                 if (user != null) {
                     emailService.sendPrescriptionCreated(
+                            user.getId(),
                             user.getEmail(),
                             patientProfile.getFullName(),
                             doctorProfile.getFullName());
@@ -71,7 +76,7 @@ public class PrescriptionController {
             }
         } catch (Exception e) {
             // Log error but don't fail request
-            e.printStackTrace();
+            log.error("Failed to queue prescription email", e);
         }
 
         return ResponseEntity.ok(Map.of("message", "Prescription created", "id", saved.getId()));
@@ -0,0 +1,25 @@
+package com.healsync.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class AnnouncementRequest {
+
+    @NotNull(message = "Clinic ID is required")
+    private Long clinicId;
+
+    @NotBlank(message = "Subject is required")
+    @Size(max = 200, message = "Subject must not exceed 200 characters")
+    private String subject;
+
+    @NotBlank(message = "Title is required")
+    @Size(max = 200, message = "Title must not exceed 200 characters")
+    private String title;
+
+    @NotBlank(message = "Message is required")
+    @Size(max = 20000, message = "Message must not exceed 20000 characters")
+    private String message;
+}
@@ -0,0 +1,17 @@
+package com.healsync.dto;
+
+import com.healsync.entity.Appointment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AppointmentPageDTO {
+    private List<Appointment> items;
+    private String nextCursor; // Pass back as ?cursor= to fetch the next page; null on the last page
+    private boolean hasMore;
+}
@@ -13,6 +13,7 @@ public class AuthResponse {
     private String email;
     private String role;
     private Long userId;
+    private String refreshToken;
 
     public AuthResponse(String token, String email, String role, Long userId) {
         this.token = token;
@@ -20,4 +21,9 @@ public class AuthResponse {
         this.role = role;
         this.userId = userId;
     }
+
+    public AuthResponse(String token, String refreshToken, String email, String role, Long userId) {
+        this(token, email, role, userId);
+        this.refreshToken = refreshToken;
+    }
 }
@@ -0,0 +1,40 @@
+package com.healsync.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchAppointmentRequest {
+
+    @NotNull(message = "Clinic ID is required")
+    private Long clinicId;
+
+    @NotEmpty(message = "At least one appointment is required")
+    @Size(max = 500, message = "A batch may contain at most 500 appointments")
+    @Valid
+    private List<BatchAppointmentItem> appointments;
+
+    @Data
+    public static class BatchAppointmentItem {
+
+        @NotNull(message = "Doctor ID is required")
+        private Long doctorId; // User ID, as in AppointmentRequest
+
+        @NotNull(message = "Patient ID is required")
+        private Long patientId; // User ID, as in AppointmentRequest
+
+        @NotBlank(message = "Start time is required")
+        private String start;
+
+        @NotBlank(message = "End time is required")
+        private String end;
+
+        private String reason;
+    }
+}
@@ -0,0 +1,26 @@
+package com.healsync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchBookingResponse {
+    private int booked;
+    private int rejected;
+    private List<ItemResult> results;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ItemResult {
+        private int index; // Position in the request's appointments list
+        private boolean booked;
+        private Long appointmentId;
+        private String message;
+    }
+}
@@ -0,0 +1,17 @@
+package com.healsync.dto;
+
+import com.healsync.entity.Appointment;
+import com.healsync.enums.BookingTicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingTicketDTO {
+    private String ticketId;
+    private BookingTicketStatus status;
+    private Appointment appointment;
+    private String message;
+}
@@ -0,0 +1,15 @@
+package com.healsync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FreeSlotDTO {
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
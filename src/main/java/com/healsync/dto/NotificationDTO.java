@@ -0,0 +1,20 @@
+package com.healsync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// What the inbox shows a user; delivery state, errors and the rendered email stay server-side
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationDTO {
+    private Long id;
+    private String title;
+    private String subject;
+    private String preview; // Plain-text start of the message
+    private LocalDateTime createdAt;
+    private Boolean isRead;
+}
@@ -0,0 +1,17 @@
+package com.healsync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationPageDTO {
+    private List<NotificationDTO> items;
+    private Long nextCursor; // Pass back as ?cursor= to fetch older notifications; null on the last page
+    private boolean hasMore;
+    private long unreadCount;
+}
@@ -0,0 +1,16 @@
+package com.healsync.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class NotificationReadRequest {
+
+    // Notification IDs to mark read; ignored when all is true
+    @Size(max = 1000, message = "At most 1000 notifications can be marked at once")
+    private List<Long> ids;
+
+    private boolean all;
+}
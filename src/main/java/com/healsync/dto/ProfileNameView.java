@@ -0,0 +1,8 @@
+package com.healsync.dto;
+
+// Projection used to resolve display names without loading whole profiles
+public interface ProfileNameView {
+    Long getId();
+
+    String getFullName();
+}
@@ -0,0 +1,18 @@
+package com.healsync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SlotHoldDTO {
+    private String holdId;
+    private Long doctorId; // User ID
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,18 @@
+package com.healsync.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class SlotHoldRequest {
+
+    @NotNull(message = "Doctor ID is required")
+    private Long doctorId;
+
+    @NotBlank(message = "Start time is required")
+    private String start;
+
+    @NotBlank(message = "End time is required")
+    private String end;
+}
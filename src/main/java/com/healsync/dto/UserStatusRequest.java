@@ -0,0 +1,12 @@
+package com.healsync.dto;
+
+import com.healsync.enums.UserStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class UserStatusRequest {
+
+    @NotNull(message = "Status is required")
+    private UserStatus status;
+}
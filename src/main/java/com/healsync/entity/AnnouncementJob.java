@@ -0,0 +1,64 @@
+package com.healsync.entity;
+
+import com.healsync.enums.AnnouncementStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "announcement_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long clinicId;
+
+    @Column(nullable = false)
+    private Long createdBy;
+
+    @Column(nullable = false, length = 200)
+    private String subject;
+
+    @Column(nullable = false, length = 200)
+    private String title;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private AnnouncementStatus status = AnnouncementStatus.QUEUED;
+
+    // Resume checkpoint: recipients are scanned in patient profile ID order
+    @Column(nullable = false)
+    private Long lastPatientId = 0L;
+
+    @Column(nullable = false)
+    private Integer sentCount = 0;
+
+    @Column(nullable = false)
+    private Integer failedCount = 0;
+
+    @Column(length = 64)
+    private String leaseOwner;
+
+    private LocalDateTime leaseUntil;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+}
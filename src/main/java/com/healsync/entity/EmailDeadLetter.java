@@ -0,0 +1,51 @@
+package com.healsync.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "email_dead_letters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long notificationId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 100)
+    private String recipientEmail;
+
+    @Column(nullable = false, length = 200)
+    private String subject;
+
+    @Column(length = 200)
+    private String title;
+
+    @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String message;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime failedAt;
+
+    private LocalDateTime replayedAt;
+}
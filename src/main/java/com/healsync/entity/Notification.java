@@ -1,5 +1,6 @@
 package com.healsync.entity;
 
+import com.healsync.enums.DeliveryStatus;
 import com.healsync.enums.NotificationType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -36,6 +37,33 @@ public class Notification {
     @Column(nullable = false)
     private Boolean isRead = false;
 
+    // Outbox fields, set for EMAIL notifications only
+    @Column(length = 100)
+    private String recipientEmail;
+
+    @Column(length = 200)
+    private String title;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private DeliveryStatus deliveryStatus;
+
+    // Urgent emails skip the digest window
+    @Column(nullable = false)
+    private Boolean urgent = false;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    private LocalDateTime sentAt;
+
+    // Earliest time a failed email is retried; null means send as soon as due.
+    // While SENDING it is the end of the dispatcher's lease on the row.
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
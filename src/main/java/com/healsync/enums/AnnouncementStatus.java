@@ -0,0 +1,8 @@
+package com.healsync.enums;
+
+public enum AnnouncementStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    CANCELLED
+}
@@ -0,0 +1,8 @@
+package com.healsync.enums;
+
+public enum BookingTicketStatus {
+    QUEUED,
+    PROCESSING,
+    BOOKED,
+    REJECTED
+}
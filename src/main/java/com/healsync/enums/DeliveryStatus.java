@@ -0,0 +1,8 @@
+package com.healsync.enums;
+
+public enum DeliveryStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.healsync.enums;
+
+public enum IdempotencyState {
+    PENDING,
+    COMPLETED
+}
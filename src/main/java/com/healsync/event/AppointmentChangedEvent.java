@@ -0,0 +1,36 @@
+package com.healsync.event;
+
+import com.healsync.entity.Appointment;
+import com.healsync.enums.AppointmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of an appointment after it was booked or changed status.
+ * doctorId and patientId are profile IDs, as stored on the appointment row.
+ */
+@Getter
+@AllArgsConstructor
+public class AppointmentChangedEvent {
+
+    private final Long appointmentId;
+    private final Long doctorId;
+    private final Long patientId;
+    private final LocalDateTime startDateTime;
+    private final LocalDateTime endDateTime;
+    private final AppointmentStatus status;
+    private final AppointmentStatus previousStatus; // null for a new booking
+
+    public static AppointmentChangedEvent of(Appointment appointment, AppointmentStatus previousStatus) {
+        return new AppointmentChangedEvent(
+                appointment.getId(),
+                appointment.getDoctorId(),
+                appointment.getPatientId(),
+                appointment.getStartDateTime(),
+                appointment.getEndDateTime(),
+                appointment.getStatus(),
+                previousStatus);
+    }
+}
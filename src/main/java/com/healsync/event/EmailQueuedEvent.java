@@ -0,0 +1,16 @@
+package com.healsync.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when an email is written to the notifications outbox, so the
+ * dispatcher can deliver it right after commit instead of on the next poll.
+ */
+@Getter
+@AllArgsConstructor
+public class EmailQueuedEvent {
+
+    private final Long notificationId;
+    private final Long userId;
+}
@@ -0,0 +1,15 @@
+package com.healsync.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a user row or one of its profile rows is created or
+ * changed, so cached copies of the user are dropped after commit.
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    private final Long userId;
+}
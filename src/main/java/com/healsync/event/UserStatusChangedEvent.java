@@ -0,0 +1,18 @@
+package com.healsync.event;
+
+import com.healsync.enums.UserStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when an admin activates or deactivates an account, so tokens
+ * already issued to the user stop (or resume) working without waiting for
+ * them to expire.
+ */
+@Getter
+@AllArgsConstructor
+public class UserStatusChangedEvent {
+
+    private final Long userId;
+    private final UserStatus status;
+}
@@ -0,0 +1,13 @@
+package com.healsync.repository;
+
+import com.healsync.entity.AnnouncementJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AnnouncementJobRepository extends JpaRepository<AnnouncementJob, Long> {
+
+    List<AnnouncementJob> findTop50ByOrderByIdDesc();
+}
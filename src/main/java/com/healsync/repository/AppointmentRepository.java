@@ -2,24 +2,56 @@ package com.healsync.repository;
 
 import com.healsync.entity.Appointment;
 import com.healsync.enums.AppointmentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
-        List<Appointment> findByDoctorId(Long doctorId);
+        List<Appointment> findByDoctorIdOrderByStartDateTimeAscIdAsc(Long doctorId);
 
-        List<Appointment> findByPatientId(Long patientId);
+        List<Appointment> findByPatientIdOrderByStartDateTimeAscIdAsc(Long patientId);
 
-        List<Appointment> findByDoctorIdAndStatus(Long doctorId, AppointmentStatus status);
+        List<Appointment> findByDoctorIdAndStatusOrderByStartDateTimeAscIdAsc(Long doctorId,
+                        AppointmentStatus status);
 
-        List<Appointment> findByPatientIdAndStatus(Long patientId, AppointmentStatus status);
+        List<Appointment> findByPatientIdAndStatusOrderByStartDateTimeAscIdAsc(Long patientId,
+                        AppointmentStatus status);
+
+        // Keyset pages over idx_appointment_doctor_date: rows strictly after (afterStart, afterId)
+        @Query("SELECT a FROM Appointment a WHERE a.doctorId = :doctorId " +
+                        "AND (:status IS NULL OR a.status = :status) " +
+                        "AND a.startDateTime < :to " +
+                        "AND (a.startDateTime > :afterStart OR (a.startDateTime = :afterStart AND a.id > :afterId)) " +
+                        "ORDER BY a.startDateTime ASC, a.id ASC")
+        List<Appointment> findDoctorPage(
+                        @Param("doctorId") Long doctorId,
+                        @Param("status") AppointmentStatus status,
+                        @Param("afterStart") LocalDateTime afterStart,
+                        @Param("afterId") Long afterId,
+                        @Param("to") LocalDateTime to,
+                        Pageable pageable);
+
+        // Keyset pages over idx_appointment_patient_date: rows strictly after (afterStart, afterId)
+        @Query("SELECT a FROM Appointment a WHERE a.patientId = :patientId " +
+                        "AND (:status IS NULL OR a.status = :status) " +
+                        "AND a.startDateTime < :to " +
+                        "AND (a.startDateTime > :afterStart OR (a.startDateTime = :afterStart AND a.id > :afterId)) " +
+                        "ORDER BY a.startDateTime ASC, a.id ASC")
+        List<Appointment> findPatientPage(
+                        @Param("patientId") Long patientId,
+                        @Param("status") AppointmentStatus status,
+                        @Param("afterStart") LocalDateTime afterStart,
+                        @Param("afterId") Long afterId,
+                        @Param("to") LocalDateTime to,
+                        Pageable pageable);
 
         @Query("SELECT DISTINCT a.patientId FROM Appointment a WHERE a.doctorId = :doctorId")
         List<Long> findDistinctPatientIdsByDoctorId(@Param("doctorId") Long doctorId);
@@ -33,4 +65,38 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
                         @Param("endDateTime") LocalDateTime endDateTime);
 
         Optional<Appointment> findTopByPatientIdAndDoctorIdOrderByStartDateTimeDesc(Long patientId, Long doctorId);
+
+        // Range scan over idx_start_date_time for the reminder scheduler's next slice
+        @Query("SELECT a FROM Appointment a WHERE a.status = 'CONFIRMED' " +
+                        "AND a.startDateTime > :from AND a.startDateTime <= :to " +
+                        "ORDER BY a.startDateTime ASC")
+        List<Appointment> findConfirmedStartingBetween(
+                        @Param("from") LocalDateTime from,
+                        @Param("to") LocalDateTime to);
+
+        @Query("SELECT a FROM Appointment a WHERE a.doctorId IN :doctorIds " +
+                        "AND a.status NOT IN ('CANCELLED') " +
+                        "AND a.startDateTime < :endDateTime AND a.endDateTime > :startDateTime")
+        List<Appointment> findActiveByDoctorIdsOverlapping(
+                        @Param("doctorIds") Collection<Long> doctorIds,
+                        @Param("startDateTime") LocalDateTime startDateTime,
+                        @Param("endDateTime") LocalDateTime endDateTime);
+
+        @Query("SELECT a.doctorId, COUNT(a) FROM Appointment a WHERE a.doctorId IN :doctorIds " +
+                        "AND a.status NOT IN ('CANCELLED') " +
+                        "AND a.startDateTime >= :from AND a.startDateTime < :to " +
+                        "GROUP BY a.doctorId")
+        List<Object[]> countActiveByDoctorIdsBetween(
+                        @Param("doctorIds") Collection<Long> doctorIds,
+                        @Param("from") LocalDateTime from,
+                        @Param("to") LocalDateTime to);
+
+        // Range scan on idx_appointment_doctor_date (doctor_id, start_date_time)
+        @Query("SELECT a FROM Appointment a WHERE a.doctorId = :doctorId " +
+                        "AND a.status NOT IN ('CANCELLED') " +
+                        "AND a.startDateTime >= :since " +
+                        "ORDER BY a.startDateTime")
+        List<Appointment> findActiveByDoctorIdStartingFrom(
+                        @Param("doctorId") Long doctorId,
+                        @Param("since") LocalDateTime since);
 }
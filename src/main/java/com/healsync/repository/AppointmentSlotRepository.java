@@ -12,4 +12,6 @@ public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot
     List<AppointmentSlot> findByDoctorId(Long doctorId);
 
     List<AppointmentSlot> findByDoctorIdAndDayOfWeekAndActiveTrue(Long doctorId, DayOfWeek dayOfWeek);
+
+    List<AppointmentSlot> findByDoctorIdAndActiveTrue(Long doctorId);
 }
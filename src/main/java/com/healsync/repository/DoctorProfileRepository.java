@@ -1,9 +1,14 @@
 package com.healsync.repository;
 
+import com.healsync.dto.ProfileNameView;
 import com.healsync.entity.DoctorProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,9 +16,24 @@ import java.util.Optional;
 public interface DoctorProfileRepository extends JpaRepository<DoctorProfile, Long> {
     Optional<DoctorProfile> findByUserId(Long userId);
 
+    List<DoctorProfile> findByUserIdIn(Collection<Long> userIds);
+
     List<DoctorProfile> findByClinicId(Long clinicId);
 
     boolean existsByLicenseNumber(String licenseNumber);
 
     List<DoctorProfile> findBySpecialization(String specialization);
+
+    @Query("SELECT d FROM DoctorProfile d WHERE d.specialization = :specialization " +
+            "AND NOT EXISTS (SELECT 1 FROM Appointment a WHERE a.doctorId = d.id " +
+            "AND a.status NOT IN ('CANCELLED') " +
+            "AND a.startDateTime < :endDateTime AND a.endDateTime > :startDateTime) " +
+            "ORDER BY d.id")
+    List<DoctorProfile> findFreeBySpecialization(
+            @Param("specialization") String specialization,
+            @Param("startDateTime") LocalDateTime startDateTime,
+            @Param("endDateTime") LocalDateTime endDateTime);
+
+    @Query("SELECT d.id AS id, d.fullName AS fullName FROM DoctorProfile d WHERE d.id IN :ids")
+    List<ProfileNameView> findNamesByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,17 @@
+package com.healsync.repository;
+
+import com.healsync.entity.EmailDeadLetter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EmailDeadLetterRepository extends JpaRepository<EmailDeadLetter, Long> {
+
+    @Query("SELECT d FROM EmailDeadLetter d WHERE d.replayedAt IS NULL AND d.id > :afterId ORDER BY d.id ASC")
+    List<EmailDeadLetter> findUnreplayed(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -1,9 +1,15 @@
 package com.healsync.repository;
 
 import com.healsync.entity.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +17,43 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
 
     List<Notification> findByUserIdAndIsReadFalse(Long userId);
+
+    long countByUserIdAndIsReadFalse(Long userId);
+
+    @Query("SELECT n.userId, COUNT(n) FROM Notification n " +
+            "WHERE n.userId IN :userIds AND n.isRead = false GROUP BY n.userId")
+    List<Object[]> countUnreadByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Newest first, strictly older than the cursor ID
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.id < :beforeId ORDER BY n.id DESC")
+    List<Notification> findInboxPage(@Param("userId") Long userId, @Param("beforeId") Long beforeId,
+            Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.id IN :ids AND n.isRead = false")
+    int markRead(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.isRead = false")
+    int markAllRead(@Param("userId") Long userId);
+
+    // Claims undelivered emails that are urgent, have waited out the digest window, or go to a
+    // recipient nobody has emailed within the window (the first email is not held back), plus
+    // SENDING rows whose lease ran out (their dispatcher died); rows locked by another node are skipped
+    @Query(value = "SELECT * FROM notifications n WHERE n.type = 'EMAIL' AND (" +
+            "(n.delivery_status = 'PENDING' AND (n.urgent = TRUE OR n.created_at <= :dueBefore " +
+            "OR NOT EXISTS (SELECT 1 FROM notifications s WHERE s.recipient_email = n.recipient_email " +
+            "AND s.type = 'EMAIL' AND (s.sent_at > :dueBefore OR s.delivery_status = 'SENDING'))) " +
+            "AND (n.next_attempt_at IS NULL OR n.next_attempt_at <= :now)) " +
+            "OR (n.delivery_status = 'SENDING' AND n.next_attempt_at <= :now)) " +
+            "ORDER BY n.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Notification> lockDueEmails(@Param("dueBefore") LocalDateTime dueBefore, @Param("now") LocalDateTime now,
+            @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM notifications WHERE type = 'EMAIL' AND delivery_status = 'PENDING' " +
+            "AND urgent = FALSE AND recipient_email IN (:recipients) " +
+            "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) " +
+            "ORDER BY id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Notification> lockPendingEmailsFor(@Param("recipients") Collection<String> recipients,
+            @Param("now") LocalDateTime now);
 }
@@ -1,12 +1,22 @@
 package com.healsync.repository;
 
+import com.healsync.dto.ProfileNameView;
 import com.healsync.entity.PatientProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PatientProfileRepository extends JpaRepository<PatientProfile, Long> {
     Optional<PatientProfile> findByUserId(Long userId);
+
+    List<PatientProfile> findByUserIdIn(Collection<Long> userIds);
+
+    @Query("SELECT p.id AS id, p.fullName AS fullName FROM PatientProfile p WHERE p.id IN :ids")
+    List<ProfileNameView> findNamesByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -2,7 +2,10 @@ package com.healsync.repository;
 
 import com.healsync.entity.User;
 import com.healsync.enums.UserRole;
+import com.healsync.enums.UserStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +18,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
 
     List<User> findByRole(UserRole role);
+
+    @Query("SELECT u.id FROM User u WHERE u.status = :status")
+    List<Long> findIdsByStatus(@Param("status") UserStatus status);
 }
@@ -0,0 +1,133 @@
+package com.healsync.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt hashing and verification on a small fixed pool instead of the
+ * request thread. A burst of logins (e.g. credential stuffing) then queues
+ * here rather than pinning every Tomcat thread on CPU-bound hashing. The
+ * queue is bounded, and a task that waited longer than the queue-time limit
+ * is abandoned before it starts; both cases fail fast with
+ * PasswordEncoderBusyException (503). Tomcat threads still wait for their own
+ * result, but only for up to the queue-time limit plus one hash.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final long maxQueueNanos;
+    private final ThreadPoolExecutor pool;
+    private final Timer queueWait;
+    private final Timer duration;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long maxQueueMillis,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxQueueNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueMillis);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        int size = Math.max(1, threads);
+        this.pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "password-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueWait = Timer.builder("password.encoder.queue.wait")
+                .description("Time password work waited for a pool thread")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.duration = Timer.builder("password.encoder.duration")
+                .description("Time from submission to result, as seen by the caller")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.encoder.rejected")
+                .description("Password checks refused because the pool was saturated")
+                .register(meterRegistry);
+        Gauge.builder("password.encoder.queue.depth", pool, p -> p.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Cheap string check on the stored hash's cost factor; no need for the pool
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> work) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                long waited = System.nanoTime() - submitted;
+                queueWait.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > maxQueueNanos) {
+                    // The caller has likely given up; spend no CPU on a stale request
+                    throw new PasswordEncoderBusyException();
+                }
+                return work.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordEncoderBusyException();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordEncoderBusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PasswordEncoderBusyException busy) {
+                rejected.increment();
+                throw busy;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password encoding failed", e.getCause());
+        } finally {
+            duration.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Picked up by Spring as the bean's destroy method
+    public void shutdown() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.healsync.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Bloom filter of registered emails, so lookups for addresses that were never
+ * registered (enumeration, credential stuffing) are answered without a
+ * query. A miss is definite; a hit still goes to the database. The filter is
+ * filled by scanning users in ID order, first in full and then incrementally
+ * for rows added on other nodes; registrations on this node are added
+ * directly. IDs are allocated before commit, so a row can become visible after
+ * a higher ID was already scanned; each incremental scan therefore re-reads a
+ * trailing window of IDs, and a periodic full scan catches anything older.
+ * Until the first scan finishes every email counts as a possible match.
+ * Emails are never removed; a deleted user only costs a false positive.
+ */
+@Component
+@Slf4j
+public class EmailBloomFilter {
+
+    private static final String USERS_SQL = "SELECT id, email FROM users WHERE id > ? ORDER BY id LIMIT ?";
+    private static final int PAGE_SIZE = 5000;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    private final AtomicLong insertions = new AtomicLong();
+    private final long rescanIds;
+    private final long fullScanMillis;
+
+    private volatile boolean ready;
+    private long lastUserId;
+    private long lastFullScanAt;
+
+    private final Counter absent;
+    private final Counter present;
+    private final Counter falsePositives;
+
+    public EmailBloomFilter(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.email-bloom.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${app.security.email-bloom.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${app.security.email-bloom.rescan-ids:1000}") long rescanIds,
+            @Value("${app.security.email-bloom.full-scan-ms:3600000}") long fullScanMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rescanIds = Math.max(0, rescanIds);
+        this.fullScanMillis = fullScanMillis;
+
+        // Standard sizing: m = -n ln p / (ln 2)^2 bits and k = (m / n) ln 2 hash functions
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+        long words = Math.max(1, (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)) / Long.SIZE));
+        this.bits = new AtomicLongArray(Math.toIntExact(words));
+        this.bitCount = words * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+
+        Gauge.builder("email.bloom.memory", this, f -> f.bits.length() * (double) Long.BYTES)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("email.bloom.insertions", insertions, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("email.bloom.fpp.estimated", this, EmailBloomFilter::estimatedFalsePositiveRate)
+                .description("Expected false-positive rate at the current fill")
+                .register(meterRegistry);
+        // Observed rate: false_positive / (false_positive + present)
+        this.absent = lookups(meterRegistry, "absent");
+        this.present = lookups(meterRegistry, "present");
+        this.falsePositives = lookups(meterRegistry, "false_positive");
+
+        log.info("Email Bloom filter: {} KiB, {} hash functions, sized for {} emails at {} false positives",
+                words * Long.BYTES / 1024, hashCount, n, p);
+    }
+
+    public boolean mightContain(String email) {
+        if (!ready || email == null) {
+            return true;
+        }
+        long[] hashes = hashes(email);
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hashes, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String email) {
+        long[] hashes = hashes(email);
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hashes, i);
+            long mask = 1L << index;
+            // Lock-free: an atomic OR on the word holding the bit
+            long previous = bits.getAndAccumulate((int) (index >>> 6), mask, (word, m) -> word | m);
+            changed |= (previous & mask) == 0;
+        }
+        if (changed) {
+            insertions.incrementAndGet();
+        }
+    }
+
+    // Runs the lookup only if the email might be registered, and records how the filter did
+    public <T> Optional<T> find(String email, Function<String, Optional<T>> lookup) {
+        if (!mightContain(email)) {
+            absent.increment();
+            return Optional.empty();
+        }
+        Optional<T> found = lookup.apply(email);
+        (found.isPresent() ? present : falsePositives).increment();
+        return found;
+    }
+
+    public boolean exists(String email, Predicate<String> existsQuery) {
+        return find(email, e -> existsQuery.test(e) ? Optional.of(Boolean.TRUE) : Optional.empty()).isPresent();
+    }
+
+    // The first run builds the filter; later runs pick up users registered on other nodes
+    @Scheduled(fixedDelayString = "${app.security.email-bloom.refresh-ms:10000}")
+    public synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        boolean fullScan = !ready || now - lastFullScanAt >= fullScanMillis;
+        // Re-reading emails already in the filter is harmless: their bits are set already
+        long cursor = fullScan ? 0 : Math.max(0, lastUserId - rescanIds);
+
+        long added = 0;
+        List<UserEmail> page;
+        do {
+            page = jdbcTemplate.query(USERS_SQL, (rs, rowNum) -> new UserEmail(rs.getLong(1), rs.getString(2)),
+                    cursor, PAGE_SIZE);
+            for (UserEmail user : page) {
+                put(user.email());
+                cursor = user.id();
+            }
+            added += page.size();
+        } while (page.size() == PAGE_SIZE);
+        lastUserId = Math.max(lastUserId, cursor);
+        if (fullScan) {
+            lastFullScanAt = now;
+        }
+
+        if (!ready) {
+            ready = true;
+            log.info("Email Bloom filter built from {} users", added);
+        }
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    private double estimatedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions.get() / bitCount), hashCount);
+    }
+
+    private long index(long[] hashes, int i) {
+        // Kirsch-Mitzenmacher: k indexes from two independent hashes
+        return Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+    }
+
+    private static long[] hashes(String email) {
+        byte[] bytes = normalize(email).getBytes(StandardCharsets.UTF_8);
+        long h = 0xcbf29ce484222325L; // FNV-1a 64
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        long h1 = mix(h);
+        long h2 = mix(h ^ 0x9e3779b97f4a7c15L) | 1; // Odd, so the k indexes never collapse onto one
+        return new long[] {h1, h2};
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9a3fe1a85b9L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // users.email compares under utf8mb4_unicode_ci, which ignores case and accents and equates ß with ss;
+    // the filter must too
+    static String normalize(String email) {
+        String lower = email.strip().toLowerCase(Locale.ROOT).replace("\u00df", "ss");
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("email.bloom.lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record UserEmail(Long id, String email) {
+    }
+}
@@ -0,0 +1,259 @@
+package com.healsync.security;
+
+import com.healsync.entity.IdempotencyRecord;
+import com.healsync.enums.IdempotencyState;
+import com.healsync.service.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Makes create endpoints safe to retry. A POST carrying an Idempotency-Key
+ * header runs once per principal and key; successful responses are stored and
+ * replayed verbatim on later attempts. The key is claimed in the database
+ * before the request runs, so a retry that arrives on any node while the first
+ * attempt is still running gets 409, and a key reused with a different body
+ * gets 422. Non-multipart bodies are buffered to be hashed, so bodies over
+ * the configured maximum are refused with 413. Runs after authorization so
+ * keys are scoped to the caller.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 200;
+    private static final Set<String> PATHS = Set.of(
+            "/api/appointments/book",
+            "/api/appointments/book/batch",
+            "/api/prescriptions",
+            "/api/medical-reports");
+
+    private final IdempotencyStore idempotencyStore;
+
+    @Value("${app.idempotency.max-body-bytes:1048576}")
+    private int maxBodyBytes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !PATHS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        String keyHash = hash(principal(), request.getMethod(), request.getRequestURI(), key);
+
+        // Multipart bodies are hashed part by part; anything else is read once and replayed to the chain
+        HttpServletRequest forwarded = request;
+        String requestHash;
+        if (request.getContentType() != null && request.getContentType().startsWith("multipart/")) {
+            requestHash = hashParts(request);
+        } else {
+            // Reads at most one byte past the limit, so an oversized body is never buffered in full
+            byte[] body = request.getContentLengthLong() > maxBodyBytes
+                    ? null
+                    : request.getInputStream().readNBytes(maxBodyBytes + 1);
+            if (body == null || body.length > maxBodyBytes) {
+                response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                        "Request body exceeds " + maxBodyBytes + " bytes");
+                return;
+            }
+            requestHash = hashBody(request.getQueryString(), body);
+            forwarded = new CachedBodyRequest(request, body);
+        }
+
+        Optional<IdempotencyRecord> existing = idempotencyStore.claim(keyHash, requestHash);
+        if (existing.isPresent()) {
+            IdempotencyRecord record = existing.get();
+            if (!record.getRequestHash().equals(requestHash)) {
+                response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                        "This " + HEADER + " was already used with a different request body");
+            } else if (record.getState() == IdempotencyState.PENDING) {
+                response.sendError(HttpServletResponse.SC_CONFLICT,
+                        "A request with this " + HEADER + " is already in progress");
+            } else {
+                replay(record, response);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(forwarded, wrapper);
+
+            int status = wrapper.getStatus();
+            if (status >= 200 && status < 300) {
+                idempotencyStore.complete(keyHash, requestHash, status, wrapper.getContentType(),
+                        wrapper.getContentAsByteArray());
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyStore.release(keyHash);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.getStatusCode());
+        response.setHeader("Idempotent-Replayed", "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        byte[] body = record.getResponseBody();
+        if (body != null && body.length > 0) {
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private static String hash(String... parts) {
+        MessageDigest digest = sha256();
+        for (String part : parts) {
+            update(digest, part);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String hashBody(String queryString, byte[] body) {
+        MessageDigest digest = sha256();
+        update(digest, queryString);
+        digest.update(body);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Parts are buffered by the container, so reading them here leaves them intact for the controller
+    private static String hashParts(HttpServletRequest request) throws IOException, ServletException {
+        MessageDigest digest = sha256();
+        update(digest, request.getQueryString());
+        for (Part part : request.getParts()) {
+            update(digest, part.getName());
+            update(digest, part.getSubmittedFileName());
+            try (InputStream in = new DigestInputStream(part.getInputStream(), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String part) {
+        if (part != null) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Holds the request body so it can be hashed before the chain and read again by the controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Async reads are not supported");
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
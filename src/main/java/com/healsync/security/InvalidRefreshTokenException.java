@@ -0,0 +1,15 @@
+package com.healsync.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A refresh token that is unknown, expired, revoked or already used. Always
+ * 401 with the same message, so callers learn nothing about which case hit.
+ */
+public class InvalidRefreshTokenException extends ResponseStatusException {
+
+    public InvalidRefreshTokenException() {
+        super(HttpStatus.UNAUTHORIZED, "Invalid or expired refresh token. Please log in again.");
+    }
+}
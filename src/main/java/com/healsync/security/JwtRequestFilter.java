@@ -1,55 +1,82 @@
 package com.healsync.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
+/**
+ * Authenticates requests from the JWT alone: the token is verified once and
+ * the principal is built from its subject and role claim, with no database
+ * lookup. Deactivated users are refused through the UserDenyList.
+ */
 @Component
 @RequiredArgsConstructor
 public class JwtRequestFilter extends OncePerRequestFilter {
 
-    private final CustomUserDetailsService userDetailsService;
+    // Claims already verified earlier in the chain (by RateLimitFilter), so the token is parsed once
+    static final String CLAIMS_ATTRIBUTE = JwtRequestFilter.class.getName() + ".claims";
+
+    private static final String STREAM_PATH = "/api/appointments/stream";
+
     private final JwtUtil jwtUtil;
+    private final UserDenyList userDenyList;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        final String authorizationHeader = request.getHeader("Authorization");
-
-        String username = null;
-        String jwt = null;
+        String jwt = resolveToken(request);
 
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+        if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                username = jwtUtil.extractUsername(jwt);
-            } catch (Exception e) {
-                logger.error("JWT Token extraction failed", e);
-            }
-        }
+                // Verifies signature and expiry in one parse
+                Claims claims = request.getAttribute(CLAIMS_ATTRIBUTE) instanceof Claims verified
+                        ? verified
+                        : jwtUtil.parseToken(jwt);
+                Long userId = claims.get("userId", Long.class);
+                String role = claims.get("role", String.class);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            if (jwtUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                if (claims.getSubject() != null && userId != null && role != null
+                        && !userDenyList.isDenied(userId)) {
+                    UserDetails userDetails = new User(claims.getSubject(), "",
+                            List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+                    UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                }
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.warn("JWT Token validation failed: " + e.getMessage());
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    static String resolveToken(HttpServletRequest request) {
+        final String authorizationHeader = request.getHeader("Authorization");
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            return authorizationHeader.substring(7);
+        }
+        if (STREAM_PATH.equals(request.getRequestURI())) {
+            // EventSource cannot set headers; accept the token as a query parameter for the stream only
+            return request.getParameter("access_token");
+        }
+        return null;
+    }
 }
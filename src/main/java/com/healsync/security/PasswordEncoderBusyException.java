@@ -0,0 +1,25 @@
+package com.healsync.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when the password pool is saturated. Surfaces as 503 with a
+ * Retry-After header instead of tying up the request thread.
+ */
+public class PasswordEncoderBusyException extends ResponseStatusException {
+
+    private static final String RETRY_AFTER_SECONDS = "2";
+
+    public PasswordEncoderBusyException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Too many sign-in requests. Please try again shortly.");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return headers;
+    }
+}
@@ -0,0 +1,193 @@
+package com.healsync.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets in front of the API, so one client polling in a
+ * loop or guessing passwords cannot starve everyone else of request threads
+ * and database connections. Clients are identified by the user ID in a valid
+ * JWT, or by remote address otherwise; sign-in endpoints are always keyed by
+ * address. Each route class has its own budget. Buckets live in a bounded
+ * Caffeine cache and are dropped once idle; taking a token is a single CAS.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> AUTH_PATHS = Set.of(
+            "/api/auth/login",
+            "/api/auth/register",
+            "/api/auth/refresh");
+
+    enum RouteClass {
+        AUTH,
+        WRITE,
+        READ
+    }
+
+    private final JwtUtil jwtUtil;
+    private final boolean enabled;
+    private final Map<RouteClass, Budget> budgets = new EnumMap<>(RouteClass.class);
+    private final Map<RouteClass, Counter> rejected = new EnumMap<>(RouteClass.class);
+    private final Cache<String, Bucket> buckets;
+
+    public RateLimitFilter(
+            JwtUtil jwtUtil,
+            MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.max-clients:100000}") long maxClients,
+            @Value("${app.rate-limit.auth.capacity:10}") int authCapacity,
+            @Value("${app.rate-limit.auth.per-minute:10}") int authPerMinute,
+            @Value("${app.rate-limit.write.capacity:30}") int writeCapacity,
+            @Value("${app.rate-limit.write.per-minute:60}") int writePerMinute,
+            @Value("${app.rate-limit.read.capacity:120}") int readCapacity,
+            @Value("${app.rate-limit.read.per-minute:600}") int readPerMinute) {
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        budgets.put(RouteClass.AUTH, new Budget(authCapacity, authPerMinute));
+        budgets.put(RouteClass.WRITE, new Budget(writeCapacity, writePerMinute));
+        budgets.put(RouteClass.READ, new Budget(readCapacity, readPerMinute));
+
+        // A bucket idle for longer than the slowest full refill is indistinguishable from a new one
+        long idleNanos = budgets.values().stream().mapToLong(Budget::refillNanos).max().orElse(0);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(Math.max(idleNanos, TimeUnit.MINUTES.toNanos(1))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rateLimitBuckets");
+        for (RouteClass routeClass : RouteClass.values()) {
+            rejected.put(routeClass, Counter.builder("rate.limit.rejected")
+                    .tag("route", routeClass.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Pages and static assets are not limited
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        RouteClass routeClass = classify(request);
+        Budget budget = budgets.get(routeClass);
+        Bucket bucket = buckets.get(routeClass.name() + ":" + clientKey(request, routeClass),
+                key -> new Bucket(budget, System.nanoTime()));
+
+        long waitNanos = bucket.tryAcquire(System.nanoTime());
+        if (waitNanos > 0) {
+            rejected.get(routeClass).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(waitNanos)));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests. Please slow down.");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // Whole seconds, rounded up so a client that honours the header is not refused again
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    private RouteClass classify(HttpServletRequest request) {
+        if (AUTH_PATHS.contains(request.getRequestURI())) {
+            return RouteClass.AUTH;
+        }
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return RouteClass.READ;
+        }
+        return RouteClass.WRITE;
+    }
+
+    // Only a verified token identifies a user; otherwise a forged user ID would dodge the limit
+    private String clientKey(HttpServletRequest request, RouteClass routeClass) {
+        if (routeClass != RouteClass.AUTH) {
+            String jwt = JwtRequestFilter.resolveToken(request);
+            if (jwt != null) {
+                try {
+                    Claims claims = jwtUtil.parseToken(jwt);
+                    Long userId = claims.get("userId", Long.class);
+                    if (userId != null) {
+                        request.setAttribute(JwtRequestFilter.CLAIMS_ATTRIBUTE, claims);
+                        return "user:" + userId;
+                    }
+                } catch (JwtException | IllegalArgumentException e) {
+                    // Fall back to the address; JwtRequestFilter reports the bad token
+                }
+            }
+        }
+        // The proxy's X-Forwarded-For is applied to the remote address when server.forward-headers-strategy is set
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    record Budget(int capacity, long intervalNanos) {
+
+        Budget(int capacity, int perMinute) {
+            this(Math.max(1, capacity), TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute));
+        }
+
+        long refillNanos() {
+            return intervalNanos * capacity;
+        }
+    }
+
+    /**
+     * Token bucket held as a single timestamp (the generic cell rate
+     * algorithm): the time at which the bucket would be full again. A request
+     * is allowed if taking one token leaves that time no more than a full
+     * bucket's worth of refill in the future.
+     */
+    static final class Bucket {
+
+        private final Budget budget;
+        private final AtomicLong fullAt;
+
+        Bucket(Budget budget, long now) {
+            this.budget = budget;
+            this.fullAt = new AtomicLong(now);
+        }
+
+        // Returns 0 if a token was taken at now (System.nanoTime), otherwise the nanoseconds until one is available
+        long tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + budget.intervalNanos();
+                long wait = next - budget.refillNanos() - now;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
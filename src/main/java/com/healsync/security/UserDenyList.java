@@ -0,0 +1,60 @@
+package com.healsync.security;
+
+import com.healsync.enums.UserStatus;
+import com.healsync.event.UserStatusChangedEvent;
+import com.healsync.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * IDs of users whose tokens are refused even though they verify. Requests are
+ * authenticated from JWT claims alone, so without this a deactivated account
+ * would keep working until its token expired. Only inactive users are held,
+ * so the set stays small. Status changes apply on this node at commit; the
+ * set is reloaded periodically so changes made on other nodes arrive within
+ * the refresh interval.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserDenyList {
+
+    private final UserRepository userRepository;
+
+    // Replaced wholesale on every change, so lookups need no locking
+    private volatile Set<Long> denied = Set.of();
+
+    public boolean isDenied(Long userId) {
+        return denied.contains(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserStatusChanged(UserStatusChangedEvent event) {
+        synchronized (this) {
+            Set<Long> next = new HashSet<>(denied);
+            if (event.getStatus() == UserStatus.ACTIVE) {
+                next.remove(event.getUserId());
+            } else {
+                next.add(event.getUserId());
+            }
+            denied = Set.copyOf(next);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.deny-list-refresh-ms:60000}")
+    public void refresh() {
+        Set<Long> loaded = Set.copyOf(userRepository.findIdsByStatus(UserStatus.INACTIVE));
+        synchronized (this) {
+            if (!loaded.equals(denied)) {
+                log.info("User deny-list refreshed: {} inactive users", loaded.size());
+            }
+            denied = loaded;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.healsync.service;
+
+import com.healsync.dto.AnnouncementRequest;
+import com.healsync.entity.AnnouncementJob;
+import com.healsync.entity.Clinic;
+import com.healsync.repository.AnnouncementJobRepository;
+import com.healsync.repository.ClinicRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends clinic-wide announcements to every patient who has had an appointment
+ * at the clinic. Jobs are persisted and run under a lease, so one node sends a
+ * given job at a time. Recipients are read in keyset slices ordered by patient
+ * profile ID, each slice goes out over a single SMTP connection, and the
+ * last ID is checkpointed with the lease renewal. The rate limit is applied
+ * between slices: a slice is sent as one burst, and the next one waits until
+ * the average is back under the configured rate. Only one slice is ever in memory; a job interrupted by a restart
+ * resumes from its checkpoint, so at most the slice in flight is sent twice.
+ */
+@Service
+@Slf4j
+public class AnnouncementService {
+
+    // The keyset walks idx_appointment_clinic_patient, so a job reads only the clinic's own patients.
+    // Inactive users come back with a NULL email: they are skipped but still advance the checkpoint.
+    private static final String RECIPIENTS_SQL = "SELECT c.patient_id, u.email FROM ("
+            + "SELECT DISTINCT a.patient_id FROM appointments a WHERE a.clinic_id = ? AND a.patient_id > ? "
+            + "ORDER BY a.patient_id LIMIT ?) c "
+            + "JOIN patient_profiles p ON p.id = c.patient_id "
+            + "LEFT JOIN users u ON u.id = p.user_id AND u.status = 'ACTIVE' "
+            + "ORDER BY c.patient_id";
+
+    private static final String NEXT_JOB_SQL = "SELECT id FROM announcement_jobs "
+            + "WHERE status IN ('QUEUED', 'RUNNING') AND (lease_until IS NULL OR lease_until < ?) "
+            + "ORDER BY id LIMIT 1";
+
+    private static final String CLAIM_SQL = "UPDATE announcement_jobs SET status = 'RUNNING', lease_owner = ?, "
+            + "lease_until = ?, started_at = COALESCE(started_at, ?) "
+            + "WHERE id = ? AND status IN ('QUEUED', 'RUNNING') AND (lease_until IS NULL OR lease_until < ?)";
+
+    private static final String CHECKPOINT_SQL = "UPDATE announcement_jobs SET last_patient_id = ?, "
+            + "sent_count = sent_count + ?, failed_count = failed_count + ?, lease_until = ? "
+            + "WHERE id = ? AND lease_owner = ? AND status = 'RUNNING'";
+
+    private static final String COMPLETE_SQL = "UPDATE announcement_jobs SET status = 'COMPLETED', "
+            + "completed_at = ?, lease_owner = NULL, lease_until = NULL "
+            + "WHERE id = ? AND lease_owner = ? AND status = 'RUNNING'";
+
+    private static final String RELEASE_SQL = "UPDATE announcement_jobs SET lease_owner = NULL, lease_until = NULL "
+            + "WHERE id = ? AND lease_owner = ?";
+
+    private static final String CANCEL_SQL = "UPDATE announcement_jobs SET status = 'CANCELLED', "
+            + "completed_at = ?, lease_owner = NULL, lease_until = NULL "
+            + "WHERE id = ? AND status IN ('QUEUED', 'RUNNING')";
+
+    private final AnnouncementJobRepository announcementJobRepository;
+    private final ClinicRepository clinicRepository;
+    private final EmailService emailService;
+    private final JavaMailSender mailSender;
+    private final JdbcTemplate jdbcTemplate;
+    private final MailCircuitBreaker circuitBreaker;
+    private final int chunkSize;
+    private final long nanosPerMessage;
+    private final long leaseSeconds;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Dedicated thread so a long send never occupies the scheduler or the notification pool
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "announcement-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AnnouncementService(
+            AnnouncementJobRepository announcementJobRepository,
+            ClinicRepository clinicRepository,
+            EmailService emailService,
+            JavaMailSender mailSender,
+            JdbcTemplate jdbcTemplate,
+            MailCircuitBreaker circuitBreaker,
+            @Value("${app.announcements.chunk-size:100}") int chunkSize,
+            @Value("${app.announcements.rate-per-second:20}") int ratePerSecond,
+            @Value("${app.announcements.lease-seconds:120}") long leaseSeconds) {
+        this.announcementJobRepository = announcementJobRepository;
+        this.clinicRepository = clinicRepository;
+        this.emailService = emailService;
+        this.mailSender = mailSender;
+        this.jdbcTemplate = jdbcTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.nanosPerMessage = TimeUnit.SECONDS.toNanos(1) / Math.max(1, ratePerSecond);
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    public AnnouncementJob createJob(AnnouncementRequest request, Long adminUserId) {
+        if (!clinicRepository.existsById(request.getClinicId())) {
+            throw new RuntimeException("Clinic not found: " + request.getClinicId());
+        }
+
+        AnnouncementJob job = new AnnouncementJob();
+        job.setClinicId(request.getClinicId());
+        job.setCreatedBy(adminUserId);
+        job.setSubject(request.getSubject());
+        job.setTitle(request.getTitle());
+        job.setMessage(request.getMessage());
+        AnnouncementJob saved = announcementJobRepository.save(job);
+
+        log.info("Announcement {} queued for clinic {} by user {}", saved.getId(), saved.getClinicId(), adminUserId);
+        pollJobs();
+        return saved;
+    }
+
+    public AnnouncementJob getJob(Long id) {
+        return announcementJobRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Announcement not found: " + id));
+    }
+
+    public List<AnnouncementJob> getRecentJobs() {
+        return announcementJobRepository.findTop50ByOrderByIdDesc();
+    }
+
+    // The sender notices at its next checkpoint and stops
+    public void cancelJob(Long id) {
+        if (jdbcTemplate.update(CANCEL_SQL, LocalDateTime.now(), id) == 0) {
+            throw new RuntimeException("Announcement " + id + " is not queued or running");
+        }
+        log.info("Announcement {} cancelled", id);
+    }
+
+    @Scheduled(fixedDelayString = "${app.announcements.poll-interval-ms:15000}")
+    public void pollJobs() {
+        if (running.compareAndSet(false, true)) {
+            sender.execute(() -> {
+                try {
+                    runPending();
+                } catch (Exception e) {
+                    log.error("Announcement sender failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    private void runPending() {
+        while (!Thread.currentThread().isInterrupted()) {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> next = jdbcTemplate.queryForList(NEXT_JOB_SQL, Long.class, now);
+            if (next.isEmpty()) {
+                return;
+            }
+            Long jobId = next.get(0);
+            if (jdbcTemplate.update(CLAIM_SQL, nodeId, leaseUntil(), now, jobId, now) == 0) {
+                continue; // Another node claimed it first
+            }
+
+            boolean finished;
+            try {
+                finished = runJob(jobId);
+            } catch (RuntimeException e) {
+                jdbcTemplate.update(RELEASE_SQL, jobId, nodeId);
+                throw e;
+            }
+            if (!finished) {
+                // Paused (relay down or shutting down); the lease is released and a later poll resumes it
+                return;
+            }
+        }
+    }
+
+    // Returns false when the job was paused rather than finished or cancelled
+    private boolean runJob(Long jobId) {
+        AnnouncementJob job = getJob(jobId);
+        String clinicName = clinicRepository.findById(job.getClinicId()).map(Clinic::getName).orElse(null);
+        String html = emailService.renderAnnouncement(clinicName, job.getTitle(), job.getMessage());
+
+        long lastPatientId = job.getLastPatientId();
+        long nextSendAt = System.nanoTime();
+        log.info("Announcement {} resuming after patient {} ({} sent so far)", jobId, lastPatientId,
+                job.getSentCount());
+
+        while (true) {
+            int limit = circuitBreaker.permits(chunkSize);
+            if (limit == 0) {
+                jdbcTemplate.update(RELEASE_SQL, jobId, nodeId);
+                log.warn("Announcement {} paused while the mail relay is unavailable", jobId);
+                return false;
+            }
+
+            List<Recipient> slice = jdbcTemplate.query(RECIPIENTS_SQL,
+                    (rs, rowNum) -> new Recipient(rs.getLong(1), rs.getString(2)),
+                    job.getClinicId(), lastPatientId, limit);
+            if (slice.isEmpty()) {
+                jdbcTemplate.update(COMPLETE_SQL, LocalDateTime.now(), jobId, nodeId);
+                log.info("Announcement {} completed", jobId);
+                return true;
+            }
+
+            List<Recipient> active = slice.stream().filter(r -> r.email() != null).toList();
+
+            // Averaged over slices: each slice goes out as one burst of up to chunk-size messages
+            long wait = nextSendAt - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    jdbcTemplate.update(RELEASE_SQL, jobId, nodeId);
+                    return false;
+                }
+            }
+            nextSendAt = Math.max(nextSendAt, System.nanoTime()) + active.size() * nanosPerMessage;
+
+            int failed = send(job.getSubject(), html, active);
+            if (failed < 0) {
+                // Nothing went out; the same slice is retried once the breaker allows it
+                circuitBreaker.recordFailure();
+                continue;
+            }
+            if (!active.isEmpty()) {
+                circuitBreaker.recordSuccess();
+            }
+
+            lastPatientId = slice.get(slice.size() - 1).patientId();
+            int updated = jdbcTemplate.update(CHECKPOINT_SQL, lastPatientId, active.size() - failed, failed,
+                    leaseUntil(), jobId, nodeId);
+            if (updated == 0) {
+                log.info("Announcement {} was cancelled or taken over; stopping", jobId);
+                return true;
+            }
+        }
+    }
+
+    // Returns the number of recipients that failed, or -1 if the relay rejected the whole slice
+    private int send(String subject, String html, List<Recipient> slice) {
+        List<MimeMessage> messages = new ArrayList<>(slice.size());
+        int failed = 0;
+        for (Recipient recipient : slice) {
+            try {
+                messages.add(emailService.buildMessage(recipient.email(), subject, html));
+            } catch (MessagingException e) {
+                failed++;
+                log.warn("Skipping announcement to {}: {}", recipient.email(), e.getMessage());
+            }
+        }
+        if (messages.isEmpty()) {
+            return failed;
+        }
+
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // Rejected recipients fail with SendFailedException; anything else failing every message is the relay
+            boolean relayDown = e.getFailedMessages().size() == messages.size()
+                    && e.getFailedMessages().values().stream().noneMatch(SendFailedException.class::isInstance);
+            if (relayDown) {
+                return -1;
+            }
+            failed += e.getFailedMessages().size();
+        } catch (MailException e) {
+            log.warn("Announcement slice of {} failed: {}", messages.size(), e.getMessage());
+            return -1;
+        }
+        return failed;
+    }
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plusSeconds(leaseSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        sender.shutdownNow();
+        sender.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private record Recipient(Long patientId, String email) {
+    }
+}
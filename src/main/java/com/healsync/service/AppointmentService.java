@@ -1,20 +1,26 @@
 package com.healsync.service;
 
+import com.healsync.dto.AppointmentPageDTO;
 import com.healsync.entity.Appointment;
-import com.healsync.entity.DoctorProfile;
 import com.healsync.entity.PatientProfile;
 import com.healsync.enums.AppointmentStatus;
+import com.healsync.event.AppointmentChangedEvent;
 import com.healsync.repository.AppointmentRepository;
 import com.healsync.repository.DoctorProfileRepository;
 import com.healsync.repository.PatientProfileRepository;
 import com.healsync.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 @Service
@@ -22,13 +28,26 @@ import java.util.List;
 @Slf4j
 public class AppointmentService {
 
+    // Bounds for open-ended windows; inside MySQL's DATETIME range
+    private static final LocalDateTime MIN_DATE_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final AppointmentRepository appointmentRepository;
     private final PatientProfileRepository patientProfileRepository;
     private final DoctorProfileRepository doctorProfileRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
-
-    @Transactional
+    private final DoctorScheduleIndex doctorScheduleIndex;
+    private final DoctorAssignmentService doctorAssignmentService;
+    private final ProfileNameResolver profileNameResolver;
+    private final SlotHoldService slotHoldService;
+    private final BookingLockService bookingLockService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // READ_COMMITTED so the overlap re-check after locking sees rows committed by other nodes
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public Appointment bookAppointment(
             Long clinicId,
             Long doctorId, // This is User ID from frontend
@@ -57,22 +76,9 @@ public class AppointmentService {
                 throw new RuntimeException("Either a Doctor or Specialization must be selected.");
             }
 
-            // Find all doctors with specialization
-            List<com.healsync.entity.DoctorProfile> doctors = doctorProfileRepository
-                    .findBySpecialization(specialization);
-
-            for (com.healsync.entity.DoctorProfile doc : doctors) {
-                // Check availability using Profile ID
-                boolean overlap = appointmentRepository.existsOverlappingAppointment(doc.getId(), start, end);
-                if (!overlap) {
-                    finalDoctorProfileId = doc.getId(); // Assign Profile ID
-                    break;
-                }
-            }
-
-            if (finalDoctorProfileId == null) {
-                throw new RuntimeException("No doctor available for selected specialization: " + specialization);
-            }
+            // Single set-based query for free doctors, then the configured policy picks one
+            finalDoctorProfileId = doctorAssignmentService.assign(specialization, start, end, patientId)
+                    .getDoctor().getId(); // Assign Profile ID
         } else {
             // Specific doctor requested (doctorId is USER ID from frontend)
             // Must resolve to Profile ID
@@ -81,11 +87,20 @@ public class AppointmentService {
 
             finalDoctorProfileId = docProfile.getId(); // Assign Profile ID
 
-            // Check availability
-            boolean overlap = appointmentRepository.existsOverlappingAppointment(finalDoctorProfileId, start, end);
-            if (overlap) {
+            // Fail fast before taking any lock. This saves no query (a hit is confirmed against the table and
+            // the locked re-check below always runs); it keeps doomed requests out of the doctor-day lock queue
+            if (doctorScheduleIndex.isBusy(finalDoctorProfileId, start, end)) {
                 throw new RuntimeException("Doctor has an overlapping appointment at this time");
             }
+            if (slotHoldService.isHeldByOther(finalDoctorProfileId, start, end, patientId)) {
+                throw new RuntimeException("This slot is currently held by another patient. Please choose another time.");
+            }
+        }
+
+        // Serialise bookings for this doctor-day across nodes, then re-check against committed rows
+        bookingLockService.lock(finalDoctorProfileId, start, end);
+        if (appointmentRepository.existsOverlappingAppointment(finalDoctorProfileId, start, end)) {
+            throw new RuntimeException("Doctor has an overlapping appointment at this time");
         }
 
         // Fetch patient profile using userId (passed as patientId)
@@ -104,6 +119,8 @@ public class AppointmentService {
 
         Appointment saved = appointmentRepository.save(appointment);
         populateNames(saved);
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(saved, null));
+        slotHoldService.releaseHolds(finalDoctorProfileId, patientId, start, end);
 
         // Send Email Notification
         try {
@@ -115,7 +132,7 @@ public class AppointmentService {
             String dName = (docProfile != null) ? docProfile.getFullName() : "Doctor";
 
             if (pEmail != null) {
-                emailService.sendAppointmentRequested(pEmail, profile.getFullName(), dName, start.toString());
+                emailService.sendAppointmentRequested(profile.getUserId(), pEmail, profile.getFullName(), dName, start.toString());
             }
         } catch (Exception e) {
             log.error("Failed to send appointment email", e);
@@ -126,68 +143,130 @@ public class AppointmentService {
 
     public List<Appointment> getAppointmentsByDoctor(Long userId) {
         // Resolve Profile ID from User ID
-        Long profileId = doctorProfileRepository.findByUserId(userId)
-                .map(DoctorProfile::getId)
-                .orElse(null);
+        Long profileId = userPrincipalCache.findDoctorProfileId(userId).orElse(null);
 
         if (profileId == null) {
             return List.of(); // or throw exception
         }
 
-        List<Appointment> appointments = appointmentRepository.findByDoctorId(profileId);
-        appointments.sort(Comparator.comparing(Appointment::getStartDateTime));
+        List<Appointment> appointments = appointmentRepository.findByDoctorIdOrderByStartDateTimeAscIdAsc(profileId);
         populateNames(appointments);
         return appointments;
     }
 
     public List<Appointment> getAppointmentsByDoctorAndStatus(Long userId, AppointmentStatus status) {
         // Resolve Profile ID from User ID
-        Long profileId = doctorProfileRepository.findByUserId(userId)
-                .map(DoctorProfile::getId)
-                .orElse(null);
+        Long profileId = userPrincipalCache.findDoctorProfileId(userId).orElse(null);
 
         if (profileId == null) {
             return List.of();
         }
 
-        List<Appointment> appointments = appointmentRepository.findByDoctorIdAndStatus(profileId, status);
-        appointments.sort(Comparator.comparing(Appointment::getStartDateTime));
+        List<Appointment> appointments = appointmentRepository
+                .findByDoctorIdAndStatusOrderByStartDateTimeAscIdAsc(profileId, status);
         populateNames(appointments);
         return appointments;
     }
 
     public List<Appointment> getAppointmentsByPatient(Long patientId) {
         // patientId argument is actually the User ID. Resolve Profile ID first.
-        Long profileId = patientProfileRepository.findByUserId(patientId)
-                .map(PatientProfile::getId)
-                .orElse(null);
+        Long profileId = userPrincipalCache.findPatientProfileId(patientId).orElse(null);
 
         if (profileId == null) {
             return List.of();
         }
 
-        List<Appointment> appointments = appointmentRepository.findByPatientId(profileId);
-        appointments.sort(Comparator.comparing(Appointment::getStartDateTime));
+        List<Appointment> appointments = appointmentRepository.findByPatientIdOrderByStartDateTimeAscIdAsc(profileId);
         populateNames(appointments);
         return appointments;
     }
 
     public List<Appointment> getAppointmentsByPatientAndStatus(Long patientId, AppointmentStatus status) {
         // patientId argument is actually the User ID. Resolve Profile ID first.
-        Long profileId = patientProfileRepository.findByUserId(patientId)
-                .map(PatientProfile::getId)
-                .orElse(null);
+        Long profileId = userPrincipalCache.findPatientProfileId(patientId).orElse(null);
 
         if (profileId == null) {
             return List.of();
         }
 
-        List<Appointment> appointments = appointmentRepository.findByPatientIdAndStatus(profileId, status);
-        appointments.sort(Comparator.comparing(Appointment::getStartDateTime));
+        List<Appointment> appointments = appointmentRepository
+                .findByPatientIdAndStatusOrderByStartDateTimeAscIdAsc(profileId, status);
         populateNames(appointments);
         return appointments;
     }
 
+    public AppointmentPageDTO getDoctorAppointmentPage(Long userId, AppointmentStatus status,
+            LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        Long profileId = userPrincipalCache.findDoctorProfileId(userId).orElse(null);
+
+        if (profileId == null) {
+            return new AppointmentPageDTO(List.of(), null, false);
+        }
+
+        PageCursor after = PageCursor.decode(cursor, from);
+        int pageSize = clampPageSize(limit);
+        List<Appointment> rows = appointmentRepository.findDoctorPage(profileId, status, after.startDateTime(),
+                after.id(), to != null ? to : MAX_DATE_TIME, PageRequest.of(0, pageSize + 1));
+        return toPage(rows, pageSize);
+    }
+
+    public AppointmentPageDTO getPatientAppointmentPage(Long userId, AppointmentStatus status,
+            LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        Long profileId = userPrincipalCache.findPatientProfileId(userId).orElse(null);
+
+        if (profileId == null) {
+            return new AppointmentPageDTO(List.of(), null, false);
+        }
+
+        PageCursor after = PageCursor.decode(cursor, from);
+        int pageSize = clampPageSize(limit);
+        List<Appointment> rows = appointmentRepository.findPatientPage(profileId, status, after.startDateTime(),
+                after.id(), to != null ? to : MAX_DATE_TIME, PageRequest.of(0, pageSize + 1));
+        return toPage(rows, pageSize);
+    }
+
+    private AppointmentPageDTO toPage(List<Appointment> rows, int pageSize) {
+        // One extra row was fetched only to learn whether another page exists
+        boolean hasMore = rows.size() > pageSize;
+        List<Appointment> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        populateNames(items);
+
+        String nextCursor = null;
+        if (hasMore) {
+            Appointment last = items.get(items.size() - 1);
+            nextCursor = PageCursor.encode(last.getStartDateTime(), last.getId());
+        }
+        return new AppointmentPageDTO(items, nextCursor, hasMore);
+    }
+
+    private int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // Opaque keyset position: the (startDateTime, id) of the last row already returned
+    private record PageCursor(LocalDateTime startDateTime, Long id) {
+
+        static String encode(LocalDateTime startDateTime, Long id) {
+            String raw = startDateTime + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PageCursor decode(String cursor, LocalDateTime from) {
+            if (cursor == null || cursor.isBlank()) {
+                // First page: everything at or after "from" (ids start at 1)
+                return new PageCursor(from != null ? from : MIN_DATE_TIME, 0L);
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('|');
+                return new PageCursor(LocalDateTime.parse(raw.substring(0, sep)),
+                        Long.parseLong(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid page cursor: " + cursor);
+            }
+        }
+    }
+
     @Transactional
     public Appointment updateStatus(Long appointmentId, AppointmentStatus status) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
@@ -199,9 +278,11 @@ public class AppointmentService {
                     "Cannot update appointment status. Current status is: " + appointment.getStatus());
         }
 
+        AppointmentStatus previousStatus = appointment.getStatus();
         appointment.setStatus(status);
         Appointment saved = appointmentRepository.save(appointment);
         populateNames(saved);
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(saved, previousStatus));
 
         // Send Email if Confirmed
         if (status == AppointmentStatus.CONFIRMED) {
@@ -225,10 +306,12 @@ public class AppointmentService {
             throw new RuntimeException("Cannot cancel appointment. Current status is: " + appointment.getStatus());
         }
 
+        AppointmentStatus previousStatus = appointment.getStatus();
         appointment.setStatus(AppointmentStatus.CANCELLED);
         appointment.setCancellationReason(reason);
         Appointment saved = appointmentRepository.save(appointment);
         populateNames(saved);
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(saved, previousStatus));
 
         // Send Cancellation Email
         try {
@@ -256,12 +339,14 @@ public class AppointmentService {
 
         if ("CONFIRMED".equals(type)) {
             emailService.sendAppointmentConfirmed(
+                    patientUser.getId(),
                     patientUser.getEmail(),
                     patientProfile.getFullName(),
                     docName,
                     appointment.getStartDateTime().toString());
         } else if ("CANCELLED".equals(type)) {
             emailService.sendAppointmentCancelled(
+                    patientUser.getId(),
                     patientUser.getEmail(),
                     patientProfile.getFullName(),
                     docName,
@@ -293,18 +378,11 @@ public class AppointmentService {
         if (appointment == null)
             return;
 
-        // Populate Doctor Name (Using Profile ID)
-        doctorProfileRepository.findById(appointment.getDoctorId())
-                .ifPresent(p -> appointment.setDoctorName(p.getFullName()));
-
-        // Populate Patient Name (Using Profile ID)
-        patientProfileRepository.findById(appointment.getPatientId())
-                .ifPresent(p -> appointment.setPatientName(p.getFullName()));
+        profileNameResolver.populateNames(List.of(appointment));
     }
 
     private void populateNames(List<Appointment> appointments) {
-        if (appointments != null) {
-            appointments.forEach(this::populateNames);
-        }
+        // One IN query per profile type instead of two lookups per row
+        profileNameResolver.populateNames(appointments);
     }
 }
@@ -0,0 +1,293 @@
+package com.healsync.service;
+
+import com.healsync.enums.UserRole;
+import com.healsync.enums.UserStatus;
+import com.healsync.event.AppointmentChangedEvent;
+import com.healsync.event.UserStatusChangedEvent;
+import com.healsync.security.UserDenyList;
+import com.healsync.service.UserPrincipalCache.CachedUser;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Pushes appointment changes to open Server-Sent Event streams. Subscribers
+ * are keyed by doctor or patient profile ID, so each change is written only to
+ * the connections of the two people it concerns. Each stream has its own
+ * small bounded queue drained by a shared pool of writers, so committing
+ * transactions never wait on a client and a stalled client holds up only its
+ * own stream: once its queue is full the stream is closed and the client
+ * reconnects. A write to a client that stopped reading blocks its writer
+ * thread until the container's write timeout (server.tomcat.connection-timeout)
+ * fails it; completing the emitter alone would not release the thread. A
+ * watchdog also fails streams whose write has been blocked past the send
+ * timeout, so the container aborts the response rather than keeping the
+ * connection. Each stalled client can therefore hold a writer for at most
+ * one send timeout, and the pool is sized for that many stalls at once.
+ * Each user may keep a few streams open, and a deactivated user's streams
+ * are closed.
+ */
+@Service
+@Slf4j
+public class AppointmentStreamHub {
+
+    private static final int QUEUE_CAPACITY = 32;
+
+    private final UserDenyList userDenyList;
+    private final long timeoutMillis;
+    private final long sendTimeoutMillis;
+    private final int maxStreamsPerUser;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService writers;
+
+    public AppointmentStreamHub(
+            UserDenyList userDenyList,
+            @Value("${app.sse.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${app.sse.send-timeout-ms:10000}") long sendTimeoutMillis,
+            @Value("${app.sse.max-streams-per-user:5}") int maxStreamsPerUser,
+            @Value("${app.sse.writer-threads:16}") int writerThreads) {
+        this.userDenyList = userDenyList;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.maxStreamsPerUser = Math.max(1, maxStreamsPerUser);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), runnable -> {
+            Thread thread = new Thread(runnable, "sse-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Opens a stream of changes to the user's own appointments (doctors and patients only)
+    public SseEmitter subscribe(CachedUser user) {
+        if (user.role() == UserRole.DOCTOR) {
+            if (user.doctorProfileId() == null) {
+                throw new RuntimeException("Doctor profile not found for user ID: " + user.userId());
+            }
+            return subscribe(doctorKey(user.doctorProfileId()), user.userId());
+        }
+        if (user.role() == UserRole.PATIENT) {
+            if (user.patientProfileId() == null) {
+                throw new RuntimeException("Patient profile not found for user ID: " + user.userId());
+            }
+            return subscribe(patientKey(user.patientProfileId()), user.userId());
+        }
+        throw new RuntimeException("Appointment stream is only available to doctors and patients");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("appointmentId", event.getAppointmentId());
+        delta.put("status", event.getStatus());
+        delta.put("previousStatus", event.getPreviousStatus());
+        delta.put("startDateTime", event.getStartDateTime());
+        delta.put("endDateTime", event.getEndDateTime());
+
+        publish(doctorKey(event.getDoctorId()), delta);
+        publish(patientKey(event.getPatientId()), delta);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserStatusChanged(UserStatusChangedEvent event) {
+        if (event.getStatus() != UserStatus.ACTIVE) {
+            closeWhere(subscriber -> subscriber.userId.equals(event.getUserId()));
+        }
+    }
+
+    // Fails streams whose write has been blocked past the send timeout; the write itself is released by the
+    // container's write timeout, and failing the emitter makes the container drop the connection afterwards
+    @Scheduled(fixedRateString = "${app.sse.send-timeout-ms:10000}")
+    public void releaseStuckStreams() {
+        long now = System.currentTimeMillis();
+        List<Subscriber> stuck = new ArrayList<>();
+        subscribers.values().forEach(set -> set.stream()
+                .filter(subscriber -> subscriber.isStuck(now, sendTimeoutMillis))
+                .forEach(stuck::add));
+        for (Subscriber subscriber : stuck) {
+            log.debug("Failing SSE stream {} for user {}: write blocked for over {} ms",
+                    subscriber.key, subscriber.userId, sendTimeoutMillis);
+            remove(subscriber);
+            subscriber.queue.clear();
+            try {
+                subscriber.emitter.completeWithError(new IOException("SSE write blocked for over "
+                        + sendTimeoutMillis + " ms"));
+            } catch (IllegalStateException e) {
+                // Already completed
+            }
+        }
+    }
+
+    // Keeps proxies and load balancers from closing idle streams, and drops streams of users deactivated
+    // on another node
+    @Scheduled(fixedRateString = "${app.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        closeWhere(subscriber -> userDenyList.isDenied(subscriber.userId));
+
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            // Only into an empty queue, so heartbeats never pile up behind a slow client
+            if (subscriber.queue.isEmpty()) {
+                enqueue(subscriber, SseEmitter.event().comment("ping"));
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private SseEmitter subscribe(String key, Long userId) {
+        Subscriber subscriber = new Subscriber(key, userId, new SseEmitter(timeoutMillis),
+                sequence.incrementAndGet());
+
+        // compute, not computeIfAbsent + add, so a concurrent remove cannot drop the set under us
+        List<Subscriber> evicted = new ArrayList<>();
+        subscribers.compute(key, (k, existing) -> {
+            Set<Subscriber> set = existing != null ? existing : ConcurrentHashMap.newKeySet();
+            // Over the cap the oldest streams (usually tabs the user already closed) make way
+            while (set.size() >= maxStreamsPerUser) {
+                Subscriber oldest = set.stream().min(Comparator.comparingLong(s -> s.sequence)).orElseThrow();
+                set.remove(oldest);
+                evicted.add(oldest);
+            }
+            set.add(subscriber);
+            return set;
+        });
+        evicted.forEach(old -> old.emitter.complete());
+
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+
+        // Flushes the response so the client sees the stream open immediately
+        enqueue(subscriber, SseEmitter.event().comment("connected"));
+        return subscriber.emitter;
+    }
+
+    private void publish(String key, Map<String, Object> delta) {
+        Set<Subscriber> set = subscribers.get(key);
+        if (set == null) {
+            return;
+        }
+        for (Subscriber subscriber : set) {
+            enqueue(subscriber, SseEmitter.event().name("appointment").data(delta));
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.queue.offer(event)) {
+            // Fell too far behind; the client reconnects and reloads instead of receiving a backlog
+            log.debug("Closing SSE stream {} for user {}: client fell behind", subscriber.key, subscriber.userId);
+            close(subscriber);
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            writers.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Writes everything queued for one stream; a stream is drained by at most one writer at a time
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null) {
+                subscriber.sendingSince = System.currentTimeMillis();
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the container completes the emitter
+                    remove(subscriber);
+                    subscriber.queue.clear();
+                } finally {
+                    subscriber.sendingSince = 0;
+                }
+            }
+            subscriber.draining.set(false);
+            // An event offered after the last poll but before the flag cleared would otherwise wait
+            if (subscriber.queue.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void closeWhere(Predicate<Subscriber> condition) {
+        List<Subscriber> matched = new ArrayList<>();
+        subscribers.values().forEach(set -> set.stream().filter(condition).forEach(matched::add));
+        matched.forEach(this::close);
+    }
+
+    private void close(Subscriber subscriber) {
+        remove(subscriber);
+        subscriber.queue.clear();
+        try {
+            subscriber.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Already completed
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static String doctorKey(Long doctorProfileId) {
+        return "doctor:" + doctorProfileId;
+    }
+
+    private static String patientKey(Long patientProfileId) {
+        return "patient:" + patientProfileId;
+    }
+
+    private static final class Subscriber {
+        private final String key;
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final long sequence;
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // When the write in progress started; 0 while idle
+        private volatile long sendingSince;
+
+        private Subscriber(String key, Long userId, SseEmitter emitter, long sequence) {
+            this.key = key;
+            this.userId = userId;
+            this.emitter = emitter;
+            this.sequence = sequence;
+        }
+
+        private boolean isStuck(long now, long sendTimeoutMillis) {
+            long since = sendingSince;
+            return since != 0 && now - since > sendTimeoutMillis;
+        }
+    }
+}
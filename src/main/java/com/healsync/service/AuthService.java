@@ -6,11 +6,19 @@ import com.healsync.entity.User;
 import com.healsync.entity.PatientProfile;
 import com.healsync.enums.UserRole;
 import com.healsync.enums.UserStatus;
+import com.healsync.event.UserChangedEvent;
+import com.healsync.event.UserStatusChangedEvent;
 import com.healsync.repository.UserRepository;
 import com.healsync.repository.PatientProfileRepository;
+import com.healsync.security.EmailBloomFilter;
+import com.healsync.security.InvalidRefreshTokenException;
 import com.healsync.security.JwtUtil;
+import com.healsync.service.UserPrincipalCache.CachedUser;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -26,11 +34,20 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final UserPrincipalCache userPrincipalCache;
+    private final RefreshTokenService refreshTokenService;
+    private final EmailBloomFilter emailBloomFilter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Off until the placeholder hashes in the seed data are replaced with real ones
+    @Value("${app.security.login-password-check:false}")
+    private boolean loginPasswordCheck;
 
     @Transactional
     public AuthResponse register(String email, String password, String fullName, java.time.LocalDate dob,
             String gender, String phone) {
-        if (userRepository.existsByEmail(email)) {
+        // Most sign-ups are new addresses: a definite Bloom filter miss skips the query
+        if (emailBloomFilter.exists(email, userRepository::existsByEmail)) {
             throw new RuntimeException("Email already exists");
         }
 
@@ -41,6 +58,8 @@ public class AuthService {
         user.setRole(UserRole.PATIENT);
         user.setStatus(UserStatus.ACTIVE);
         user = userRepository.save(user);
+        // Added before commit: a rollback leaves only a harmless false positive
+        emailBloomFilter.put(user.getEmail());
 
         // Create patient profile
         PatientProfile profile = new PatientProfile();
@@ -50,16 +69,18 @@ public class AuthService {
         profile.setGender(gender);
         profile.setPhone(phone);
         patientProfileRepository.save(profile);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
 
         // Generate JWT
         String token = jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().name());
+        String refreshToken = refreshTokenService.issue(user.getId());
 
-        return new AuthResponse(token, user.getEmail(), user.getRole().name(), user.getId());
+        return new AuthResponse(token, refreshToken, user.getEmail(), user.getRole().name(), user.getId());
     }
 
     @Transactional
     public void createDoctor(com.healsync.dto.CreateDoctorRequest request) {
-        if (userRepository.existsByEmail(request.getEmail())) {
+        if (emailBloomFilter.exists(request.getEmail(), userRepository::existsByEmail)) {
             throw new RuntimeException("Email already exists");
         }
 
@@ -69,6 +90,7 @@ public class AuthService {
         user.setRole(UserRole.DOCTOR);
         user.setStatus(UserStatus.ACTIVE);
         user = userRepository.save(user);
+        emailBloomFilter.put(user.getEmail());
 
         com.healsync.entity.DoctorProfile profile = new com.healsync.entity.DoctorProfile();
         profile.setUserId(user.getId());
@@ -79,17 +101,37 @@ public class AuthService {
         profile.setClinicId(request.getClinicId());
         profile.setBio(request.getBio());
         doctorProfileRepository.save(profile);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+    }
+
+    // Existing tokens are refused via the deny-list as soon as this commits
+    @Transactional
+    public void updateUserStatus(Long userId, UserStatus status) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (user.getStatus() == status) {
+            return;
+        }
+        user.setStatus(status);
+        userRepository.save(user);
+        eventPublisher.publishEvent(new UserStatusChangedEvent(user.getId(), status));
     }
 
     public AuthResponse login(LoginRequest request) {
-        // Authenticate
-        // Authenticate - BYPASSING PASSWORD CHECK
-        // authenticationManager.authenticate(
-        // new UsernamePasswordAuthenticationToken(request.getEmail(),
-        // request.getPassword()));
-
-        // Get user
-        User user = userRepository.findByEmail(request.getEmail())
+        // Authenticate - verification runs on the bounded password pool and upgrades weak hashes
+        if (loginPasswordCheck) {
+            try {
+                authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
+            } catch (BadCredentialsException e) {
+                throw new RuntimeException("Invalid email or password");
+            }
+        }
+
+        // Get user; after a password check the filter was already consulted (and counted) while loading the user
+        User user = (loginPasswordCheck
+                ? userRepository.findByEmail(request.getEmail())
+                : emailBloomFilter.find(request.getEmail(), userRepository::findByEmail))
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         if (user.getStatus() != UserStatus.ACTIVE) {
@@ -98,13 +140,32 @@ public class AuthService {
 
         // Generate JWT
         String token = jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().name());
+        // Without the password check the email alone signs in; long-lived refresh tokens need a verified password
+        String refreshToken = loginPasswordCheck ? refreshTokenService.issue(user.getId()) : null;
+
+        return new AuthResponse(token, refreshToken, user.getEmail(), user.getRole().name(), user.getId());
+    }
+
+    // Mints a new access token from a refresh token: no password check and no user query on a cache hit
+    public AuthResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        CachedUser user = userPrincipalCache.findByUserId(rotation.userId()).orElse(null);
+        if (user == null || user.status() != UserStatus.ACTIVE) {
+            refreshTokenService.revokeAll(rotation.userId());
+            throw new InvalidRefreshTokenException();
+        }
+
+        String token = jwtUtil.generateToken(user.email(), user.userId(), user.role().name());
+        return new AuthResponse(token, rotation.refreshToken(), user.email(), user.role().name(), user.userId());
+    }
 
-        return new AuthResponse(token, user.getEmail(), user.getRole().name(), user.getId());
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
     }
 
     public AuthResponse getCurrentUser(String email) {
-        User user = userRepository.findByEmail(email)
+        CachedUser user = userPrincipalCache.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        return new AuthResponse(null, user.getEmail(), user.getRole().name(), user.getId());
+        return new AuthResponse(null, user.email(), user.role().name(), user.userId());
     }
 }
@@ -0,0 +1,279 @@
+package com.healsync.service;
+
+import com.healsync.dto.BatchAppointmentRequest;
+import com.healsync.dto.BatchAppointmentRequest.BatchAppointmentItem;
+import com.healsync.dto.BatchBookingResponse;
+import com.healsync.dto.BatchBookingResponse.ItemResult;
+import com.healsync.entity.Appointment;
+import com.healsync.entity.DoctorProfile;
+import com.healsync.entity.PatientProfile;
+import com.healsync.entity.User;
+import com.healsync.enums.AppointmentStatus;
+import com.healsync.event.AppointmentChangedEvent;
+import com.healsync.repository.AppointmentRepository;
+import com.healsync.repository.DoctorProfileRepository;
+import com.healsync.repository.PatientProfileRepository;
+import com.healsync.repository.UserRepository;
+import com.healsync.service.BookingLockService.DoctorDay;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Books many appointments in one transaction. Conflicts are checked set-wise:
+ * one query loads every existing appointment that could clash with the batch,
+ * and the batch is checked against itself in memory. Accepted rows are inserted
+ * with a single JDBC batch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchBookingService {
+
+    private static final String INSERT_SQL = "INSERT INTO appointments "
+            + "(clinic_id, doctor_id, patient_id, start_date_time, end_date_time, status, reason, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorProfileRepository doctorProfileRepository;
+    private final PatientProfileRepository patientProfileRepository;
+    private final UserRepository userRepository;
+    private final ProfileNameResolver profileNameResolver;
+    private final SlotHoldService slotHoldService;
+    private final BookingLockService bookingLockService;
+    private final EmailService emailService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // READ_COMMITTED so the conflict query after locking sees rows committed by other nodes
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public BatchBookingResponse bookBatch(BatchAppointmentRequest request) {
+        List<BatchAppointmentItem> items = request.getAppointments();
+        ItemResult[] results = new ItemResult[items.size()];
+
+        // Resolve every doctor and patient in one query per type (IDs from the frontend are User IDs)
+        Map<Long, DoctorProfile> doctors = doctorProfileRepository.findByUserIdIn(
+                items.stream().map(BatchAppointmentItem::getDoctorId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(DoctorProfile::getUserId, Function.identity()));
+        Map<Long, PatientProfile> patients = patientProfileRepository.findByUserIdIn(
+                items.stream().map(BatchAppointmentItem::getPatientId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(PatientProfile::getUserId, Function.identity()));
+
+        // Validate each item and build candidate rows
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, Appointment> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchAppointmentItem item = items.get(i);
+            String error = null;
+            LocalDateTime start = null;
+            LocalDateTime end = null;
+            try {
+                start = LocalDateTime.parse(item.getStart());
+                end = LocalDateTime.parse(item.getEnd());
+            } catch (DateTimeParseException e) {
+                error = "Invalid date-time format.";
+            }
+
+            if (error == null && start.isBefore(now)) {
+                error = "Cannot book appointment in the past. Please select a future time slot.";
+            } else if (error == null && !end.isAfter(start)) {
+                error = "Invalid appointment duration.";
+            } else if (error == null && !doctors.containsKey(item.getDoctorId())) {
+                error = "Doctor profile not found for user ID: " + item.getDoctorId();
+            } else if (error == null && !patients.containsKey(item.getPatientId())) {
+                error = "Patient profile not found for user ID: " + item.getPatientId();
+            }
+
+            if (error != null) {
+                results[i] = new ItemResult(i, false, null, error);
+                continue;
+            }
+
+            Appointment appointment = new Appointment();
+            appointment.setClinicId(request.getClinicId());
+            appointment.setDoctorId(doctors.get(item.getDoctorId()).getId());
+            appointment.setPatientId(patients.get(item.getPatientId()).getId());
+            appointment.setStartDateTime(start);
+            appointment.setEndDateTime(end);
+            appointment.setReason(item.getReason());
+            appointment.setStatus(AppointmentStatus.REQUESTED);
+            candidates.put(i, appointment);
+        }
+
+        // Lock every doctor-day in the batch (sorted, so concurrent batches cannot deadlock)
+        List<DoctorDay> doctorDays = new ArrayList<>();
+        for (Appointment appointment : candidates.values()) {
+            doctorDays.addAll(BookingLockService.daysOf(appointment.getDoctorId(), appointment.getStartDateTime(),
+                    appointment.getEndDateTime()));
+        }
+        bookingLockService.lockAll(doctorDays);
+
+        // Check conflicts against the database (one query) and within the batch
+        Map<Long, List<Appointment>> busy = loadBusy(candidates.values());
+        List<Appointment> accepted = new ArrayList<>();
+        for (Map.Entry<Integer, Appointment> entry : candidates.entrySet()) {
+            Appointment appointment = entry.getValue();
+            List<Appointment> doctorBusy = busy.computeIfAbsent(appointment.getDoctorId(), id -> new ArrayList<>());
+
+            Appointment clash = findOverlap(doctorBusy, appointment);
+            if (clash != null) {
+                String message = clash.getId() != null
+                        ? "Doctor has an overlapping appointment at this time"
+                        : "Overlaps another appointment in this batch";
+                results[entry.getKey()] = new ItemResult(entry.getKey(), false, null, message);
+                continue;
+            }
+            if (slotHoldService.isHeldByOther(appointment.getDoctorId(), appointment.getStartDateTime(),
+                    appointment.getEndDateTime(), items.get(entry.getKey()).getPatientId())) {
+                results[entry.getKey()] = new ItemResult(entry.getKey(), false, null,
+                        "This slot is currently held by another patient. Please choose another time.");
+                continue;
+            }
+            doctorBusy.add(appointment);
+            accepted.add(appointment);
+        }
+
+        insertAll(accepted, now);
+
+        for (Map.Entry<Integer, Appointment> entry : candidates.entrySet()) {
+            if (results[entry.getKey()] == null) {
+                Appointment saved = entry.getValue();
+                results[entry.getKey()] = new ItemResult(entry.getKey(), true, saved.getId(), "Appointment requested");
+                eventPublisher.publishEvent(AppointmentChangedEvent.of(saved, null));
+            }
+        }
+
+        notifyPatients(accepted);
+
+        log.info("Batch booking for clinic {}: {} booked, {} rejected", request.getClinicId(), accepted.size(),
+                items.size() - accepted.size());
+        return new BatchBookingResponse(accepted.size(), items.size() - accepted.size(), List.of(results));
+    }
+
+    private Map<Long, List<Appointment>> loadBusy(Collection<Appointment> candidates) {
+        Map<Long, List<Appointment>> busy = new HashMap<>();
+        if (candidates.isEmpty()) {
+            return busy;
+        }
+
+        LocalDateTime from = candidates.stream().map(Appointment::getStartDateTime)
+                .min(LocalDateTime::compareTo).orElseThrow();
+        LocalDateTime to = candidates.stream().map(Appointment::getEndDateTime)
+                .max(LocalDateTime::compareTo).orElseThrow();
+        List<Long> doctorIds = candidates.stream().map(Appointment::getDoctorId).distinct().toList();
+
+        for (Appointment existing : appointmentRepository.findActiveByDoctorIdsOverlapping(doctorIds, from, to)) {
+            busy.computeIfAbsent(existing.getDoctorId(), id -> new ArrayList<>()).add(existing);
+        }
+        return busy;
+    }
+
+    private Appointment findOverlap(List<Appointment> busy, Appointment candidate) {
+        for (Appointment other : busy) {
+            if (other.getStartDateTime().isBefore(candidate.getEndDateTime())
+                    && other.getEndDateTime().isAfter(candidate.getStartDateTime())) {
+                return other;
+            }
+        }
+        return null;
+    }
+
+    // Appointment uses IDENTITY keys, which rule out Hibernate insert batching, so rows go through JDBC
+    private void insertAll(List<Appointment> appointments, LocalDateTime now) {
+        if (appointments.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                Timestamp created = Timestamp.valueOf(now);
+                for (Appointment a : appointments) {
+                    ps.setLong(1, a.getClinicId());
+                    ps.setLong(2, a.getDoctorId());
+                    ps.setLong(3, a.getPatientId());
+                    ps.setTimestamp(4, Timestamp.valueOf(a.getStartDateTime()));
+                    ps.setTimestamp(5, Timestamp.valueOf(a.getEndDateTime()));
+                    ps.setString(6, a.getStatus().name());
+                    if (a.getReason() != null) {
+                        ps.setString(7, a.getReason());
+                    } else {
+                        ps.setNull(7, Types.VARCHAR);
+                    }
+                    ps.setTimestamp(8, created);
+                    ps.setTimestamp(9, created);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> keys = new ArrayList<>(appointments.size());
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        keys.add(rs.getLong(1));
+                    }
+                }
+                return keys;
+            }
+        });
+
+        if (ids == null || ids.size() != appointments.size()) {
+            throw new IllegalStateException("Batch insert returned " + (ids == null ? 0 : ids.size())
+                    + " keys for " + appointments.size() + " appointments");
+        }
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment a = appointments.get(i);
+            a.setId(ids.get(i));
+            a.setCreatedAt(now);
+            a.setUpdatedAt(now);
+        }
+    }
+
+    // One consolidated email per patient instead of one per appointment
+    private void notifyPatients(List<Appointment> accepted) {
+        if (accepted.isEmpty()) {
+            return;
+        }
+        try {
+            profileNameResolver.populateNames(accepted);
+
+            Map<Long, List<Appointment>> byPatient = accepted.stream()
+                    .collect(Collectors.groupingBy(Appointment::getPatientId, LinkedHashMap::new,
+                            Collectors.toList()));
+            Map<Long, PatientProfile> profiles = patientProfileRepository.findAllById(byPatient.keySet()).stream()
+                    .collect(Collectors.toMap(PatientProfile::getId, Function.identity()));
+            Map<Long, String> emails = userRepository.findAllById(
+                    profiles.values().stream().map(PatientProfile::getUserId).toList()).stream()
+                    .collect(Collectors.toMap(User::getId, User::getEmail));
+
+            for (Map.Entry<Long, List<Appointment>> entry : byPatient.entrySet()) {
+                PatientProfile profile = profiles.get(entry.getKey());
+                String email = profile != null ? emails.get(profile.getUserId()) : null;
+                if (email != null) {
+                    emailService.sendAppointmentsBatchRequested(profile.getUserId(), email, profile.getFullName(), entry.getValue());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to send batch appointment emails", e);
+        }
+    }
+}
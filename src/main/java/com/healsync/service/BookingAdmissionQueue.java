@@ -0,0 +1,217 @@
+package com.healsync.service;
+
+import com.healsync.dto.AppointmentRequest;
+import com.healsync.dto.BookingTicketDTO;
+import com.healsync.entity.Appointment;
+import com.healsync.enums.BookingTicketStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional asynchronous admission for POST /api/appointments/book. Requests
+ * are queued per doctor (or per specialization for auto-assignment) in bounded
+ * lanes and drained by a small worker pool. A lane is scheduled at most once
+ * at a time and takes one request per turn, so lanes are served round-robin
+ * and a single busy doctor never has two workers contending for its lock.
+ * Lanes are created, fed and dropped only inside the map's compute methods,
+ * so a request can never land on a lane that is being purged. The total
+ * number of tickets (queued and uncollected) is capped, since lane keys come
+ * from the request.
+ */
+@Service
+@Slf4j
+public class BookingAdmissionQueue {
+
+    private final AppointmentService appointmentService;
+    private final BookingLockService bookingLockService;
+    private final boolean enabled;
+    private final int laneCapacity;
+    private final int maxTickets;
+    private final long ticketTtlSeconds;
+    private final ExecutorService workers;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    public BookingAdmissionQueue(
+            AppointmentService appointmentService,
+            BookingLockService bookingLockService,
+            @Value("${app.booking.async.enabled:false}") boolean enabled,
+            @Value("${app.booking.async.workers:4}") int workerCount,
+            @Value("${app.booking.async.lane-capacity:100}") int laneCapacity,
+            @Value("${app.booking.async.max-tickets:10000}") int maxTickets,
+            @Value("${app.booking.async.ticket-ttl-seconds:600}") long ticketTtlSeconds) {
+        this.appointmentService = appointmentService;
+        this.bookingLockService = bookingLockService;
+        this.enabled = enabled;
+        this.laneCapacity = laneCapacity;
+        this.maxTickets = maxTickets;
+        this.ticketTtlSeconds = ticketTtlSeconds;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), runnable -> {
+            Thread thread = new Thread(runnable, "booking-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns the queued ticket, or empty when the lane for this doctor or the ticket table is full
+    public Optional<BookingTicketDTO> submit(AppointmentRequest request) {
+        String laneKey = request.getDoctorId() != null
+                ? "doctor:" + request.getDoctorId()
+                : "specialization:" + request.getSpecialization();
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), request);
+
+        // Checked without a global lock, so concurrent submits may overshoot the cap slightly
+        if (tickets.size() >= maxTickets) {
+            return Optional.empty();
+        }
+
+        // Enqueued inside compute so purgeExpired cannot drop the lane in between
+        Lane[] toSchedule = new Lane[1];
+        boolean[] accepted = new boolean[1];
+        lanes.compute(laneKey, (key, existing) -> {
+            Lane lane = existing != null ? existing : new Lane();
+            synchronized (lane) {
+                if (lane.pending.size() < laneCapacity) {
+                    lane.pending.add(ticket);
+                    tickets.put(ticket.id, ticket);
+                    accepted[0] = true;
+                    if (!lane.scheduled) {
+                        lane.scheduled = true;
+                        toSchedule[0] = lane;
+                    }
+                }
+            }
+            return lane;
+        });
+
+        if (!accepted[0]) {
+            return Optional.empty();
+        }
+        if (toSchedule[0] != null) {
+            Lane lane = toSchedule[0];
+            workers.execute(() -> runTurn(lane));
+        }
+        return Optional.of(ticket.toDTO());
+    }
+
+    public Optional<BookingTicketDTO> getTicket(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId)).map(Ticket::toDTO);
+    }
+
+    // Processes one request, then sends the lane to the back of the pool queue if it has more
+    private void runTurn(Lane lane) {
+        Ticket ticket;
+        synchronized (lane) {
+            ticket = lane.pending.poll();
+            if (ticket == null) {
+                lane.scheduled = false;
+                return;
+            }
+        }
+
+        process(ticket);
+
+        boolean more;
+        synchronized (lane) {
+            more = !lane.pending.isEmpty();
+            lane.scheduled = more;
+        }
+        if (more) {
+            workers.execute(() -> runTurn(lane));
+        }
+    }
+
+    private void process(Ticket ticket) {
+        ticket.status = BookingTicketStatus.PROCESSING;
+        AppointmentRequest request = ticket.request;
+        try {
+            Appointment appointment = bookingLockService.retryOnLockFailure(() -> appointmentService.bookAppointment(
+                    request.getClinicId(),
+                    request.getDoctorId(),
+                    request.getPatientId(),
+                    LocalDateTime.parse(request.getStart()),
+                    LocalDateTime.parse(request.getEnd()),
+                    request.getReason(),
+                    request.getSpecialization()));
+            ticket.complete(BookingTicketStatus.BOOKED, appointment, "Appointment requested");
+        } catch (Exception e) {
+            ticket.complete(BookingTicketStatus.REJECTED, null, e.getMessage());
+            log.debug("Queued booking {} rejected: {}", ticket.id, e.getMessage());
+        }
+    }
+
+    // Drops finished tickets nobody has collected and lanes that have gone idle
+    @Scheduled(fixedRate = 60000)
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(ticketTtlSeconds);
+        tickets.values().removeIf(t -> t.completedAt != null && t.completedAt.isBefore(cutoff));
+        // Idle check and removal happen atomically with respect to submit's compute
+        for (String laneKey : lanes.keySet()) {
+            lanes.computeIfPresent(laneKey, (key, lane) -> {
+                synchronized (lane) {
+                    return !lane.scheduled && lane.pending.isEmpty() ? null : lane;
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private static final class Lane {
+        private final Queue<Ticket> pending = new ArrayDeque<>();
+        private boolean scheduled;
+    }
+
+    private static final class Ticket {
+        private final String id;
+        private final AppointmentRequest request;
+        private volatile BookingTicketStatus status = BookingTicketStatus.QUEUED;
+        private volatile Appointment appointment;
+        private volatile String message;
+        private volatile LocalDateTime completedAt;
+
+        private Ticket(String id, AppointmentRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+
+        private void complete(BookingTicketStatus status, Appointment appointment, String message) {
+            this.appointment = appointment;
+            this.message = message;
+            this.completedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        private BookingTicketDTO toDTO() {
+            return new BookingTicketDTO(id, status, appointment, message);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.healsync.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Serialises bookings per doctor and day across all application nodes. Each
+ * doctor-day has a row in doctor_day_locks that callers lock exclusively before
+ * checking for overlaps and inserting; the lock is held until the surrounding
+ * transaction ends. Locks are always taken in (doctor, date) order so two
+ * transactions touching the same days cannot deadlock on each other. Callers
+ * still run bookings through retryOnLockFailure, because MySQL may pick a
+ * victim or time out a lock wait under heavy contention.
+ */
+@Service
+@Slf4j
+public class BookingLockService {
+
+    // Creates the row or takes an exclusive lock on the existing one in a single statement.
+    // INSERT IGNORE followed by SELECT ... FOR UPDATE would take a shared lock on a duplicate
+    // key first, and two bookers upgrading from shared to exclusive deadlock every time.
+    private static final String LOCK_SQL = "INSERT INTO doctor_day_locks (doctor_id, lock_date) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE lock_date = lock_date";
+
+    private static final Comparator<DoctorDay> ORDER = Comparator.comparing(DoctorDay::doctorProfileId)
+            .thenComparing(DoctorDay::date);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxAttempts;
+
+    public BookingLockService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.booking.lock-attempts:3}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * Runs a booking transaction, starting it again when MySQL rolled it back
+     * as a deadlock victim or after a lock wait timeout. The booking must open
+     * its own transaction (a call through a @Transactional proxy), since the
+     * failed one cannot be continued.
+     */
+    public <T> T retryOnLockFailure(Supplier<T> booking) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return booking.get();
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Booking lost a lock conflict (attempt {} of {}), retrying", attempt, maxAttempts);
+                pause(attempt);
+            }
+        }
+    }
+
+    // Locks every day the appointment touches for the doctor
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lock(Long doctorProfileId, LocalDateTime start, LocalDateTime end) {
+        lockAll(daysOf(doctorProfileId, start, end));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockAll(Collection<DoctorDay> doctorDays) {
+        TreeSet<DoctorDay> sorted = new TreeSet<>(ORDER);
+        sorted.addAll(doctorDays);
+        if (sorted.isEmpty()) {
+            return;
+        }
+
+        // One statement per row, in order, so the locks are acquired in a fixed sequence
+        for (DoctorDay day : sorted) {
+            jdbcTemplate.update(LOCK_SQL, day.doctorProfileId(), Date.valueOf(day.date()));
+        }
+    }
+
+    public static List<DoctorDay> daysOf(Long doctorProfileId, LocalDateTime start, LocalDateTime end) {
+        List<DoctorDay> days = new ArrayList<>();
+        // An appointment ending exactly at midnight does not touch the next day
+        LocalDate last = end.toLocalTime().equals(LocalTime.MIDNIGHT) && end.isAfter(start)
+                ? end.toLocalDate().minusDays(1)
+                : end.toLocalDate();
+        for (LocalDate d = start.toLocalDate(); !d.isAfter(last); d = d.plusDays(1)) {
+            days.add(new DoctorDay(doctorProfileId, d));
+        }
+        return days;
+    }
+
+    // Short randomised pause so the retrying transactions do not collide again in step
+    private static void pause(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50L * attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying booking", e);
+        }
+    }
+
+    public record DoctorDay(Long doctorProfileId, LocalDate date) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.healsync.service;
+
+import com.healsync.entity.DoctorProfile;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Picks one doctor out of several that are all free for the requested window.
+ * Implementations are Spring beans selected by {@link #name()} through
+ * app.booking.assignment-policy.
+ */
+public interface DoctorAssignmentPolicy {
+
+    String name();
+
+    DoctorProfile choose(List<DoctorProfile> freeDoctors, LocalDateTime start, LocalDateTime end);
+
+    // Database queries issued by a single choose() call
+    default int queriesPerChoice() {
+        return 0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.healsync.service;
+
+import com.healsync.entity.DoctorProfile;
+import com.healsync.repository.DoctorProfileRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class DoctorAssignmentService {
+
+    private final DoctorProfileRepository doctorProfileRepository;
+    private final SlotHoldService slotHoldService;
+    private final DoctorAssignmentPolicy policy;
+
+    public DoctorAssignmentService(
+            DoctorProfileRepository doctorProfileRepository,
+            SlotHoldService slotHoldService,
+            List<DoctorAssignmentPolicy> policies,
+            @Value("${app.booking.assignment-policy:least-booked-today}") String policyName) {
+        this.doctorProfileRepository = doctorProfileRepository;
+        this.slotHoldService = slotHoldService;
+
+        Map<String, DoctorAssignmentPolicy> byName = policies.stream()
+                .collect(Collectors.toMap(DoctorAssignmentPolicy::name, Function.identity()));
+        this.policy = byName.get(policyName);
+        if (this.policy == null) {
+            throw new IllegalStateException(
+                    "Unknown doctor assignment policy: " + policyName + ". Available: " + byName.keySet());
+        }
+    }
+
+    public DoctorAssignment assign(String specialization, LocalDateTime start, LocalDateTime end,
+            Long patientUserId) {
+        // One set-based query returns every doctor in the specialization without an overlap
+        List<DoctorProfile> freeDoctors = new ArrayList<>(
+                doctorProfileRepository.findFreeBySpecialization(specialization, start, end));
+        int queries = 1;
+
+        // Slots other patients are holding count as busy (in memory, no query)
+        freeDoctors.removeIf(d -> slotHoldService.isHeldByOther(d.getId(), start, end, patientUserId));
+
+        if (freeDoctors.isEmpty()) {
+            throw new RuntimeException("No doctor available for selected specialization: " + specialization);
+        }
+
+        DoctorProfile chosen;
+        if (freeDoctors.size() == 1) {
+            chosen = freeDoctors.get(0);
+        } else {
+            chosen = policy.choose(freeDoctors, start, end);
+            queries += policy.queriesPerChoice();
+        }
+
+        log.info("Assigned doctor profile {} for {} at {} using {} policy: {} free candidates, {} queries",
+                chosen.getId(), specialization, start, policy.name(), freeDoctors.size(), queries);
+        return new DoctorAssignment(chosen, freeDoctors.size(), queries);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class DoctorAssignment {
+        private final DoctorProfile doctor;
+        private final int candidates;
+        private final int queries;
+    }
+}
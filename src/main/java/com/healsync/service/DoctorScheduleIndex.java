@@ -0,0 +1,199 @@
+package com.healsync.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healsync.entity.Appointment;
+import com.healsync.enums.AppointmentStatus;
+import com.healsync.event.AppointmentChangedEvent;
+import com.healsync.repository.AppointmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * In-memory view of each doctor's non-cancelled appointments, keyed by doctor
+ * profile ID. Schedules are loaded on first use and kept current from
+ * committed appointment changes on this node; changes committed on other
+ * nodes are picked up when the entry expires, so schedules are bounded by
+ * size and a TTL. The database overlap query stays the final authority:
+ * hasOverlap is only a hint, and isBusy confirms a hit against the table
+ * before anyone is turned away.
+ * <p>
+ * On the booking path the index is only a fail-fast filter and saves no
+ * database check: a miss still runs the overlap query under the doctor-day
+ * lock, and a hit runs it to confirm. What a hit saves is the lock, so
+ * requests for a slot that is already taken do not queue behind bookings
+ * that can succeed. The reads that do skip the table are the free-slot
+ * listings built from bookedBetween.
+ */
+@Component
+@Slf4j
+public class DoctorScheduleIndex {
+
+    // Bookings in the past are rejected, so only recent and future rows are indexed
+    private static final Duration LOOKBACK = Duration.ofDays(1);
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final Cache<Long, DoctorSchedule> schedules;
+
+    public DoctorScheduleIndex(
+            AppointmentRepository appointmentRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.doctor-schedules.max-size:5000}") long maxSize,
+            @Value("${app.cache.doctor-schedules.ttl:2m}") String ttl) {
+        this.appointmentRepository = appointmentRepository;
+        this.schedules = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(DurationStyle.detectAndParse(ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, schedules, "doctorSchedules");
+    }
+
+    // Hint only: a hit may be stale if the appointment was cancelled on another node
+    public boolean hasOverlap(Long doctorProfileId, LocalDateTime start, LocalDateTime end) {
+        return scheduleFor(doctorProfileId).overlaps(start, end);
+    }
+
+    // A miss is trusted (the locked re-check catches the rest); a hit is confirmed against the table
+    public boolean isBusy(Long doctorProfileId, LocalDateTime start, LocalDateTime end) {
+        if (!hasOverlap(doctorProfileId, start, end)) {
+            return false;
+        }
+        if (appointmentRepository.existsOverlappingAppointment(doctorProfileId, start, end)) {
+            return true;
+        }
+        log.debug("Schedule for doctor profile {} was stale; reloading", doctorProfileId);
+        evict(doctorProfileId);
+        return false;
+    }
+
+    // Non-cancelled appointments overlapping [from, to), ordered by start
+    public List<BookedSlot> bookedBetween(Long doctorProfileId, LocalDateTime from, LocalDateTime to) {
+        return scheduleFor(doctorProfileId).between(from, to);
+    }
+
+    public void evict(Long doctorProfileId) {
+        schedules.invalidate(doctorProfileId);
+    }
+
+    // Runs before other listeners so caches derived from the index see the change
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        // Only touch schedules that are already loaded; an unloaded one reads the committed row later.
+        // computeIfPresent waits for an in-flight load of the same doctor, so the change is never lost.
+        schedules.asMap().computeIfPresent(event.getDoctorId(), (id, schedule) -> {
+            if (event.getStatus() == AppointmentStatus.CANCELLED) {
+                schedule.remove(event.getAppointmentId());
+            } else {
+                schedule.put(event.getAppointmentId(), event.getStartDateTime(), event.getEndDateTime());
+            }
+            return schedule;
+        });
+    }
+
+    private DoctorSchedule scheduleFor(Long doctorProfileId) {
+        return schedules.get(doctorProfileId, this::load);
+    }
+
+    private DoctorSchedule load(Long doctorProfileId) {
+        List<Appointment> appointments = appointmentRepository
+                .findActiveByDoctorIdStartingFrom(doctorProfileId, LocalDateTime.now().minus(LOOKBACK));
+
+        DoctorSchedule schedule = new DoctorSchedule();
+        for (Appointment a : appointments) {
+            schedule.put(a.getId(), a.getStartDateTime(), a.getEndDateTime());
+        }
+        log.debug("Loaded schedule for doctor profile {} with {} appointments", doctorProfileId,
+                appointments.size());
+        return schedule;
+    }
+
+    public record BookedSlot(LocalDateTime start, LocalDateTime end) {
+    }
+
+    private record Slot(Long id, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private static final class DoctorSchedule {
+
+        private static final Comparator<Slot> ORDER = Comparator.comparing(Slot::start)
+                .thenComparing(Slot::id);
+
+        private final NavigableSet<Slot> byStart = new TreeSet<>(ORDER);
+        private final Map<Long, Slot> byId = new HashMap<>();
+
+        // Longest appointment seen; bounds how far back an overlapping slot can start
+        private Duration longest = Duration.ZERO;
+
+        synchronized boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            for (Slot slot : candidates(start, end)) {
+                if (slot.end().isAfter(start)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized List<BookedSlot> between(LocalDateTime start, LocalDateTime end) {
+            List<BookedSlot> booked = new ArrayList<>();
+            for (Slot slot : candidates(start, end)) {
+                if (slot.end().isAfter(start)) {
+                    booked.add(new BookedSlot(slot.start(), slot.end()));
+                }
+            }
+            return booked;
+        }
+
+        // Slots starting before end and no earlier than the longest appointment before start
+        private NavigableSet<Slot> candidates(LocalDateTime start, LocalDateTime end) {
+            Slot from = new Slot(Long.MIN_VALUE, start.minus(longest), null);
+            Slot to = new Slot(Long.MIN_VALUE, end, null);
+            return byStart.subSet(from, true, to, false);
+        }
+
+        synchronized void put(Long id, LocalDateTime start, LocalDateTime end) {
+            remove(id);
+            Slot slot = new Slot(id, start, end);
+            byStart.add(slot);
+            byId.put(id, slot);
+
+            Duration length = Duration.between(start, end);
+            if (length.compareTo(longest) > 0) {
+                longest = length;
+            }
+            pruneBefore(LocalDateTime.now().minus(LOOKBACK));
+        }
+
+        synchronized void remove(Long id) {
+            Slot slot = byId.remove(id);
+            if (slot != null) {
+                byStart.remove(slot);
+            }
+        }
+
+        private void pruneBefore(LocalDateTime cutoff) {
+            while (!byStart.isEmpty() && byStart.first().end().isBefore(cutoff)) {
+                byId.remove(byStart.pollFirst().id());
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ public class DoctorService {
     private final PatientProfileRepository patientProfileRepository;
     private final UserRepository userRepository;
     private final DoctorAvailabilityRepository doctorAvailabilityRepository;
+    private final FreeSlotService freeSlotService;
 
     public List<DoctorPatientDTO> getPatientsForDoctor(Long doctorId) {
         // doctorId passed from controller is likely User ID.
@@ -58,10 +59,14 @@ public class DoctorService {
     }
 
     public DoctorAvailability addAvailability(DoctorAvailability availability) {
-        return doctorAvailabilityRepository.save(availability);
+        DoctorAvailability saved = doctorAvailabilityRepository.save(availability);
+        freeSlotService.evictDoctorByUserId(saved.getDoctorId());
+        return saved;
     }
 
     public void deleteAvailability(Long id) {
+        Optional<DoctorAvailability> existing = doctorAvailabilityRepository.findById(id);
         doctorAvailabilityRepository.deleteById(id);
+        existing.ifPresent(a -> freeSlotService.evictDoctorByUserId(a.getDoctorId()));
     }
 }
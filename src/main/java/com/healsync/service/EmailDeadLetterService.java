@@ -0,0 +1,98 @@
+package com.healsync.service;
+
+import com.healsync.entity.EmailDeadLetter;
+import com.healsync.entity.Notification;
+import com.healsync.enums.DeliveryStatus;
+import com.healsync.enums.NotificationType;
+import com.healsync.event.EmailQueuedEvent;
+import com.healsync.repository.EmailDeadLetterRepository;
+import com.healsync.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Emails that exhausted their retries. A copy of the message is kept so an
+ * admin can replay it once the cause is fixed; replay queues a fresh outbox
+ * row rather than reviving the failed one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailDeadLetterService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int REPLAY_CHUNK = 500;
+
+    private final EmailDeadLetterRepository emailDeadLetterRepository;
+    private final NotificationRepository notificationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Runs inside the dispatcher's transaction, together with marking the row FAILED
+    public void deadLetter(Notification notification) {
+        EmailDeadLetter deadLetter = new EmailDeadLetter();
+        deadLetter.setNotificationId(notification.getId());
+        deadLetter.setUserId(notification.getUserId());
+        deadLetter.setRecipientEmail(notification.getRecipientEmail());
+        deadLetter.setSubject(notification.getSubject());
+        deadLetter.setTitle(notification.getTitle());
+        deadLetter.setMessage(notification.getMessage());
+        deadLetter.setAttempts(notification.getAttempts());
+        deadLetter.setLastError(notification.getLastError());
+        emailDeadLetterRepository.save(deadLetter);
+    }
+
+    public List<EmailDeadLetter> getPending(Long afterId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return emailDeadLetterRepository.findUnreplayed(afterId != null ? afterId : 0L, PageRequest.of(0, size));
+    }
+
+    @Transactional
+    public void replay(Long id) {
+        EmailDeadLetter deadLetter = emailDeadLetterRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Dead letter not found: " + id));
+        if (deadLetter.getReplayedAt() != null) {
+            throw new RuntimeException("Dead letter " + id + " was already replayed");
+        }
+        requeue(deadLetter);
+    }
+
+    @Transactional
+    public int replayAll() {
+        int replayed = 0;
+        List<EmailDeadLetter> chunk;
+        do {
+            // Replayed rows drop out of the query, so each chunk starts from the beginning
+            chunk = emailDeadLetterRepository.findUnreplayed(0L, PageRequest.of(0, REPLAY_CHUNK));
+            chunk.forEach(this::requeue);
+            replayed += chunk.size();
+        } while (chunk.size() == REPLAY_CHUNK);
+
+        log.info("Replayed {} dead-lettered emails", replayed);
+        return replayed;
+    }
+
+    private void requeue(EmailDeadLetter deadLetter) {
+        Notification notification = new Notification();
+        notification.setUserId(deadLetter.getUserId());
+        notification.setType(NotificationType.EMAIL);
+        notification.setSubject(deadLetter.getSubject());
+        notification.setTitle(deadLetter.getTitle());
+        notification.setMessage(deadLetter.getMessage());
+        notification.setRecipientEmail(deadLetter.getRecipientEmail());
+        notification.setDeliveryStatus(DeliveryStatus.PENDING);
+        // Replays are deliberate; do not hold them for a digest
+        notification.setUrgent(true);
+        Notification saved = notificationRepository.save(notification);
+
+        deadLetter.setReplayedAt(LocalDateTime.now());
+        emailDeadLetterRepository.save(deadLetter);
+        eventPublisher.publishEvent(new EmailQueuedEvent(saved.getId(), saved.getUserId()));
+    }
+}
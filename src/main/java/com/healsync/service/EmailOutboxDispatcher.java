@@ -0,0 +1,332 @@
+package com.healsync.service;
+
+import com.healsync.entity.Notification;
+import com.healsync.enums.DeliveryStatus;
+import com.healsync.event.EmailQueuedEvent;
+import com.healsync.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers EMAIL notifications queued by EmailService. Each run claims a batch
+ * of pending rows with FOR UPDATE SKIP LOCKED, so several nodes can drain the
+ * outbox side by side, and sends the whole batch over a single SMTP
+ * connection. The claim is a short transaction that marks the rows SENDING
+ * under a lease; the SMTP exchange runs with no transaction or connection
+ * held, and a second transaction records the outcome. Rows whose lease
+ * expires (the node died mid-send) are claimed again. Delivery runs on its
+ * own thread, so a slow relay never holds up the shared scheduler.
+ * A recipient's first email is sent at once; non-urgent rows that follow it
+ * within the digest window wait it out and are merged into one email per
+ * recipient. Urgent rows are sent as soon as they are claimed.
+ * Failed rows are retried with exponential backoff and jitter, then marked
+ * FAILED and copied to the dead-letter table; a circuit breaker pauses
+ * delivery while the relay is down.
+ */
+@Service
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private final NotificationRepository notificationRepository;
+    private final EmailService emailService;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long digestWindowSeconds;
+    private final long initialBackoffSeconds;
+    private final long maxBackoffSeconds;
+    private final long leaseSeconds;
+    private final MailCircuitBreaker circuitBreaker;
+    private final EmailDeadLetterService deadLetterService;
+
+    private final ThreadPoolExecutor sender;
+    private final Timer runTime;
+
+    public EmailOutboxDispatcher(
+            MeterRegistry meterRegistry,
+            NotificationRepository notificationRepository,
+            EmailService emailService,
+            JavaMailSender mailSender,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+            @Value("${app.mail.outbox.max-attempts:5}") int maxAttempts,
+            @Value("${app.mail.digest-window-seconds:300}") long digestWindowSeconds,
+            @Value("${app.mail.retry.initial-backoff-seconds:30}") long initialBackoffSeconds,
+            @Value("${app.mail.retry.max-backoff-seconds:3600}") long maxBackoffSeconds,
+            @Value("${app.mail.outbox.lease-seconds:300}") long leaseSeconds,
+            MailCircuitBreaker circuitBreaker,
+            EmailDeadLetterService deadLetterService) {
+        this.notificationRepository = notificationRepository;
+        this.emailService = emailService;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.digestWindowSeconds = digestWindowSeconds;
+        this.initialBackoffSeconds = Math.max(1, initialBackoffSeconds);
+        this.maxBackoffSeconds = Math.max(this.initialBackoffSeconds, maxBackoffSeconds);
+        this.leaseSeconds = leaseSeconds;
+        this.circuitBreaker = circuitBreaker;
+        this.deadLetterService = deadLetterService;
+
+        // One run at a time plus at most one queued: a queued run sees everything committed before it
+        // starts, so further kicks while one is waiting are redundant and discarded (and only counted)
+        Counter discarded = Counter.builder("mail.outbox.dispatcher.discarded")
+                .description("Dispatch kicks dropped because a run was already queued")
+                .register(meterRegistry);
+        this.sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, pool) -> discarded.increment());
+        this.runTime = Timer.builder("mail.outbox.dispatcher.run")
+                .description("Time spent draining the outbox per dispatch run")
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.dispatcher.queue.depth", sender, p -> p.getQueue().size())
+                .description("Dispatch runs waiting for the sender thread")
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.dispatcher.active", sender, ThreadPoolExecutor::getActiveCount)
+                .description("1 while a dispatch run is sending")
+                .register(meterRegistry);
+    }
+
+    // Delivers right after the queuing transaction commits; the scheduled poll is the fallback
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        sender.execute(this::dispatch);
+    }
+
+    // Only hands off to the sender thread, so the scheduler is never blocked on SMTP
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:2000}")
+    public void poll() {
+        sender.execute(this::dispatch);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        sender.shutdown();
+        if (!sender.awaitTermination(10, TimeUnit.SECONDS)) {
+            sender.shutdownNow();
+        }
+    }
+
+    private void dispatch() {
+        long started = System.nanoTime();
+        try {
+            drain();
+        } catch (Exception e) {
+            log.error("Email outbox dispatch failed", e);
+        } finally {
+            runTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Keep draining while full batches come back
+    private void drain() {
+        int claimed;
+        do {
+            claimed = dispatchBatch();
+        } while (claimed == batchSize);
+    }
+
+    private int dispatchBatch() {
+        // While the relay is failing the breaker lets nothing, or a single probe, through
+        int limit = circuitBreaker.permits(batchSize);
+        if (limit == 0) {
+            return 0;
+        }
+
+        Claim claim = transactionTemplate.execute(status -> claim(limit));
+        if (claim == null || claim.batch().isEmpty()) {
+            return 0;
+        }
+        List<Notification> batch = claim.batch();
+
+        Map<Notification, Exception> failed = new IdentityHashMap<>();
+        Map<MimeMessage, List<Notification>> messages = new IdentityHashMap<>();
+        for (List<Notification> group : groupForDelivery(batch)) {
+            try {
+                MimeMessage message = group.size() == 1
+                        ? emailService.buildMessage(group.get(0))
+                        : emailService.buildDigest(group);
+                messages.put(message, group);
+            } catch (Exception e) {
+                group.forEach(n -> failed.put(n, e));
+            }
+        }
+
+        // No transaction is open here, so no row locks or pooled connection wait on the relay
+        boolean relayDown = false;
+        int sent = 0;
+        if (!messages.isEmpty()) {
+            Map<Object, Exception> failures = send(messages.keySet());
+
+            // A batch where every message failed (e.g. the connection was refused) counts against the relay
+            relayDown = failures.size() == messages.size();
+            if (relayDown) {
+                circuitBreaker.recordFailure();
+                log.warn("Email batch of {} failed", messages.size());
+            } else {
+                circuitBreaker.recordSuccess();
+            }
+
+            for (Map.Entry<MimeMessage, List<Notification>> entry : messages.entrySet()) {
+                Exception failure = failures.get(entry.getKey());
+                if (failure != null) {
+                    entry.getValue().forEach(n -> failed.put(n, failure));
+                }
+            }
+            sent = messages.size() - failures.size();
+        }
+
+        LocalDateTime sentAt = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Notification notification : batch) {
+                Exception failure = failed.get(notification);
+                if (failure != null) {
+                    markFailed(notification, failure);
+                } else {
+                    notification.setDeliveryStatus(DeliveryStatus.SENT);
+                    notification.setSentAt(sentAt);
+                    notification.setNextAttemptAt(null);
+                }
+            }
+            notificationRepository.saveAll(batch);
+        });
+
+        log.info("Email outbox: sent {} of {} messages covering {} notifications", sent, messages.size(),
+                batch.size());
+        return relayDown ? 0 : claim.due(); // Stop draining until the next poll if the relay is down
+    }
+
+    // Locks due rows and leases them to this dispatcher; commits before anything is sent
+    private Claim claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime dueBefore = now.minusSeconds(digestWindowSeconds);
+        List<Notification> batch = new ArrayList<>(notificationRepository.lockDueEmails(dueBefore, now, limit));
+        if (batch.isEmpty()) {
+            return new Claim(batch, 0);
+        }
+        int due = batch.size();
+
+        // Once a recipient has anything due, their newer non-urgent emails ride along in the digest
+        if (digestWindowSeconds > 0) {
+            Set<Long> claimedIds = batch.stream().map(Notification::getId).collect(Collectors.toSet());
+            Set<String> recipients = batch.stream().filter(n -> !n.getUrgent())
+                    .map(Notification::getRecipientEmail).collect(Collectors.toSet());
+            if (!recipients.isEmpty()) {
+                for (Notification extra : notificationRepository.lockPendingEmailsFor(recipients, now)) {
+                    if (claimedIds.add(extra.getId())) {
+                        batch.add(extra);
+                    }
+                }
+            }
+        }
+
+        LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+        for (Notification notification : batch) {
+            notification.setDeliveryStatus(DeliveryStatus.SENDING);
+            notification.setNextAttemptAt(leaseUntil);
+        }
+        notificationRepository.saveAll(batch);
+        return new Claim(batch, due);
+    }
+
+    private Map<Object, Exception> send(Collection<MimeMessage> messages) {
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+            return Map.of();
+        } catch (MailSendException e) {
+            return e.getFailedMessages();
+        } catch (MailException e) {
+            // Authentication or other relay-level failure: nothing in the batch went out
+            Map<Object, Exception> failures = new IdentityHashMap<>();
+            for (MimeMessage message : messages) {
+                failures.put(message, e);
+            }
+            return failures;
+        }
+    }
+
+    // Urgent emails go out on their own; everything else is merged per recipient
+    private List<List<Notification>> groupForDelivery(List<Notification> batch) {
+        List<List<Notification>> groups = new ArrayList<>();
+        Map<String, List<Notification>> digests = new LinkedHashMap<>();
+        for (Notification notification : batch) {
+            if (notification.getUrgent() || digestWindowSeconds <= 0) {
+                groups.add(List.of(notification));
+            } else {
+                digests.computeIfAbsent(notification.getRecipientEmail(), r -> new ArrayList<>()).add(notification);
+            }
+        }
+        groups.addAll(digests.values());
+        return groups;
+    }
+
+    // Retries with exponential backoff and jitter; after max attempts the email is dead-lettered
+    private void markFailed(Notification notification, Exception e) {
+        int attempts = notification.getAttempts() + 1;
+        notification.setAttempts(attempts);
+        notification.setLastError(truncate(e.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            notification.setDeliveryStatus(DeliveryStatus.FAILED);
+            notification.setNextAttemptAt(null);
+            deadLetterService.deadLetter(notification);
+            log.error("Giving up on email {} to {} after {} attempts", notification.getId(),
+                    notification.getRecipientEmail(), attempts, e);
+            return;
+        }
+
+        // Back to PENDING (out of the lease) until the retry is due
+        notification.setDeliveryStatus(DeliveryStatus.PENDING);
+        notification.setNextAttemptAt(LocalDateTime.now().plusSeconds(
+                retryDelaySeconds(attempts, initialBackoffSeconds, maxBackoffSeconds)));
+    }
+
+    // Half the delay is fixed and half random, so retries after an outage do not arrive together
+    static long retryDelaySeconds(int attempts, long initialBackoffSeconds, long maxBackoffSeconds) {
+        long delay = Math.min(maxBackoffSeconds, initialBackoffSeconds << Math.min(attempts - 1, 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    // due is how many rows the batch query returned; digest extras do not count toward draining
+    private record Claim(List<Notification> batch, int due) {
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
@@ -0,0 +1,248 @@
+package com.healsync.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healsync.dto.FreeSlotDTO;
+import com.healsync.entity.AppointmentSlot;
+import com.healsync.entity.DoctorAvailability;
+import com.healsync.entity.DoctorProfile;
+import com.healsync.enums.AppointmentStatus;
+import com.healsync.event.AppointmentChangedEvent;
+import com.healsync.repository.AppointmentSlotRepository;
+import com.healsync.repository.DoctorAvailabilityRepository;
+import com.healsync.repository.DoctorProfileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns a doctor's weekly slot rules and booked appointments into bookable
+ * free slots. Results are cached per doctor-week, grouped by doctor so a
+ * change only ever touches that doctor's weeks; a booking removes the slots
+ * it covers from the cached week and a cancellation drops the week so it is
+ * rebuilt from the schedule index on the next read. Cached weeks expire with
+ * the schedule index TTL so changes made on other nodes are picked up.
+ */
+@Service
+@Slf4j
+public class FreeSlotService {
+
+    private static final int MAX_CACHED_DOCTORS = 500;
+    private static final int MAX_WEEKS_PER_DOCTOR = 10;
+    private static final int MAX_RANGE_DAYS = 62;
+
+    private final AppointmentSlotRepository appointmentSlotRepository;
+    private final DoctorAvailabilityRepository doctorAvailabilityRepository;
+    private final DoctorProfileRepository doctorProfileRepository;
+    private final DoctorScheduleIndex doctorScheduleIndex;
+    private final SlotHoldService slotHoldService;
+
+    // Used for DoctorAvailability windows, which carry no slot length of their own
+    private final int defaultSlotMinutes;
+
+    private final Cache<Long, DoctorWeeks> doctors;
+
+    public FreeSlotService(
+            AppointmentSlotRepository appointmentSlotRepository,
+            DoctorAvailabilityRepository doctorAvailabilityRepository,
+            DoctorProfileRepository doctorProfileRepository,
+            DoctorScheduleIndex doctorScheduleIndex,
+            SlotHoldService slotHoldService,
+            @Value("${app.booking.default-slot-minutes:30}") int defaultSlotMinutes,
+            @Value("${app.cache.doctor-schedules.ttl:2m}") String ttl) {
+        this.appointmentSlotRepository = appointmentSlotRepository;
+        this.doctorAvailabilityRepository = doctorAvailabilityRepository;
+        this.doctorProfileRepository = doctorProfileRepository;
+        this.doctorScheduleIndex = doctorScheduleIndex;
+        this.slotHoldService = slotHoldService;
+        this.defaultSlotMinutes = defaultSlotMinutes;
+        // Expiry counts from when a doctor's first week was cached, so no week outlives the TTL
+        this.doctors = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_DOCTORS)
+                .expireAfterWrite(DurationStyle.detectAndParse(ttl))
+                .build();
+    }
+
+    public List<FreeSlotDTO> getFreeSlots(Long doctorUserId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("End date must not be before start date.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new RuntimeException("Date range must not exceed " + MAX_RANGE_DAYS + " days.");
+        }
+
+        DoctorProfile profile = doctorProfileRepository.findByUserId(doctorUserId)
+                .orElseThrow(() -> new RuntimeException("Doctor profile not found for user ID: " + doctorUserId));
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime rangeStart = from.atStartOfDay();
+        LocalDateTime rangeEnd = to.plusDays(1).atStartOfDay();
+
+        List<FreeSlotDTO> result = new ArrayList<>();
+        for (LocalDate week = weekStart(from); week.isBefore(to.plusDays(1)); week = week.plusWeeks(1)) {
+            for (FreeSlotDTO slot : weekSlots(profile, week)) {
+                LocalDateTime start = slot.getStart();
+                // Held slots are filtered at read time; holds are too short-lived to cache
+                if (!start.isBefore(rangeStart) && start.isBefore(rangeEnd) && start.isAfter(now)
+                        && !slotHoldService.isHeld(profile.getId(), start, slot.getEnd())) {
+                    result.add(slot);
+                }
+            }
+        }
+        return result;
+    }
+
+    public void evictDoctor(Long doctorProfileId) {
+        // A week still being computed lands in the detached entry and is never read
+        doctors.invalidate(doctorProfileId);
+    }
+
+    public void evictDoctorByUserId(Long doctorUserId) {
+        doctorProfileRepository.findByUserId(doctorUserId)
+                .ifPresent(profile -> evictDoctor(profile.getId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        DoctorWeeks doctor = doctors.getIfPresent(event.getDoctorId());
+        if (doctor == null) {
+            return;
+        }
+        // Bumped before the weeks are touched, so a week computed concurrently is not cached stale
+        doctor.generation.incrementAndGet();
+
+        LocalDateTime start = event.getStartDateTime();
+        LocalDateTime end = event.getEndDateTime();
+        List<LocalDate> touched = new ArrayList<>();
+        touched.add(weekStart(start.toLocalDate()));
+        LocalDate lastWeek = weekStart(end.toLocalDate());
+        if (!lastWeek.equals(touched.get(0))) {
+            touched.add(lastWeek);
+        }
+
+        for (LocalDate week : touched) {
+            if (event.getStatus() == AppointmentStatus.CANCELLED) {
+                // Freed slots are rebuilt from the schedule index on the next read
+                doctor.weeks.remove(week);
+            } else if (event.getPreviousStatus() == null) {
+                // New booking: drop just the slots it covers
+                doctor.weeks.computeIfPresent(week, (k, slots) -> slots.stream()
+                        .filter(s -> !(s.getStart().isBefore(end) && s.getEnd().isAfter(start)))
+                        .toList());
+            }
+        }
+    }
+
+    private List<FreeSlotDTO> weekSlots(DoctorProfile profile, LocalDate weekStart) {
+        DoctorWeeks doctor = doctors.get(profile.getId(), id -> new DoctorWeeks());
+        List<FreeSlotDTO> cached = doctor.weeks.get(weekStart);
+        if (cached != null) {
+            return cached;
+        }
+
+        long seen = doctor.generation.get();
+        List<FreeSlotDTO> computed = computeWeek(profile, weekStart);
+        if (doctor.weeks.size() < MAX_WEEKS_PER_DOCTOR) {
+            doctor.weeks.put(weekStart, computed);
+            // A change to this doctor since the computation started may have missed the new entry
+            if (doctor.generation.get() != seen) {
+                doctor.weeks.remove(weekStart, computed);
+            }
+        }
+        return computed;
+    }
+
+    private List<FreeSlotDTO> computeWeek(DoctorProfile profile, LocalDate weekStart) {
+        LocalDateTime weekFrom = weekStart.atStartOfDay();
+        List<DoctorScheduleIndex.BookedSlot> booked = doctorScheduleIndex
+                .bookedBetween(profile.getId(), weekFrom, weekFrom.plusWeeks(1));
+        List<SlotRule> rules = rulesFor(profile);
+
+        List<FreeSlotDTO> free = new ArrayList<>();
+        for (int d = 0; d < 7; d++) {
+            LocalDate day = weekStart.plusDays(d);
+            for (SlotRule rule : rules) {
+                if (rule.day() != day.getDayOfWeek()) {
+                    continue;
+                }
+                LocalDateTime slotStart = day.atTime(rule.start());
+                LocalDateTime limit = day.atTime(rule.end());
+                while (!slotStart.plus(rule.length()).isAfter(limit)) {
+                    LocalDateTime slotEnd = slotStart.plus(rule.length());
+                    if (!overlapsAny(booked, slotStart, slotEnd)) {
+                        free.add(new FreeSlotDTO(slotStart, slotEnd));
+                    }
+                    slotStart = slotEnd;
+                }
+            }
+        }
+        free.sort(Comparator.comparing(FreeSlotDTO::getStart));
+        return List.copyOf(free);
+    }
+
+    private List<SlotRule> rulesFor(DoctorProfile profile) {
+        List<SlotRule> rules = new ArrayList<>();
+
+        // appointment_slots is keyed by doctor profile ID and carries its own slot length
+        for (AppointmentSlot slot : appointmentSlotRepository.findByDoctorIdAndActiveTrue(profile.getId())) {
+            if (slot.getSlotDurationMinutes() != null && slot.getSlotDurationMinutes() > 0) {
+                rules.add(new SlotRule(slot.getDayOfWeek(), slot.getStartTime(), slot.getEndTime(),
+                        Duration.ofMinutes(slot.getSlotDurationMinutes())));
+            }
+        }
+        if (!rules.isEmpty()) {
+            return rules;
+        }
+
+        // Fall back to the availability windows doctors maintain from the dashboard (User ID)
+        for (DoctorAvailability availability : doctorAvailabilityRepository.findByDoctorId(profile.getUserId())) {
+            try {
+                rules.add(new SlotRule(DayOfWeek.valueOf(availability.getDayOfWeek().toUpperCase()),
+                        availability.getStartTime(), availability.getEndTime(),
+                        Duration.ofMinutes(defaultSlotMinutes)));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping availability {} with unknown day: {}", availability.getId(),
+                        availability.getDayOfWeek());
+            }
+        }
+        return rules;
+    }
+
+    private boolean overlapsAny(List<DoctorScheduleIndex.BookedSlot> booked, LocalDateTime start,
+            LocalDateTime end) {
+        for (DoctorScheduleIndex.BookedSlot b : booked) {
+            if (b.start().isBefore(end) && b.end().isAfter(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static final class DoctorWeeks {
+        private final AtomicLong generation = new AtomicLong();
+        private final Map<LocalDate, List<FreeSlotDTO>> weeks = new ConcurrentHashMap<>();
+    }
+
+    private record SlotRule(DayOfWeek day, LocalTime start, LocalTime end, Duration length) {
+    }
+}
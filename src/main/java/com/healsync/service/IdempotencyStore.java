@@ -0,0 +1,144 @@
+package com.healsync.service;
+
+import com.healsync.entity.IdempotencyRecord;
+import com.healsync.enums.IdempotencyState;
+import com.healsync.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Claims and stored responses for idempotent POSTs, kept in the
+ * idempotency_keys table so every node sees them. A request first claims its
+ * key with a PENDING row (a plain INSERT, so exactly one caller wins the
+ * primary key), then either completes it with the response or releases it
+ * when the request fails. Completed records also sit in a bounded LRU cache,
+ * so most replays are answered without a query.
+ */
+@Service
+@Slf4j
+public class IdempotencyStore {
+
+    private static final int MAX_CACHED = 10000;
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private static final String CLAIM_SQL = "INSERT IGNORE INTO idempotency_keys "
+            + "(key_hash, state, request_hash, created_at) VALUES (?, 'PENDING', ?, ?)";
+    private static final String TAKE_OVER_SQL = "UPDATE idempotency_keys SET created_at = ? "
+            + "WHERE key_hash = ? AND state = 'PENDING' AND created_at < ?";
+    private static final String COMPLETE_SQL = "UPDATE idempotency_keys "
+            + "SET state = 'COMPLETED', status_code = ?, content_type = ?, response_body = ? "
+            + "WHERE key_hash = ? AND state = 'PENDING'";
+    private static final String RELEASE_SQL = "DELETE FROM idempotency_keys WHERE key_hash = ? AND state = 'PENDING'";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long retentionHours;
+    private final long pendingTimeoutSeconds;
+
+    private final Map<String, IdempotencyRecord> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, IdempotencyRecord>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                    return size() > MAX_CACHED;
+                }
+            });
+
+    public IdempotencyStore(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.idempotency.retention-hours:24}") long retentionHours,
+            @Value("${app.idempotency.pending-timeout-seconds:120}") long pendingTimeoutSeconds) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionHours = retentionHours;
+        this.pendingTimeoutSeconds = pendingTimeoutSeconds;
+    }
+
+    /**
+     * Claims the key for this request. Returns empty when the caller now owns
+     * the key and must run the request, otherwise the existing record: PENDING
+     * while another attempt is running, COMPLETED once its response is stored.
+     */
+    public Optional<IdempotencyRecord> claim(String keyHash, String requestHash) {
+        IdempotencyRecord cached = cache.get(keyHash);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            if (jdbcTemplate.update(CLAIM_SQL, keyHash, requestHash, Timestamp.valueOf(now)) == 1) {
+                return Optional.empty();
+            }
+
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(keyHash);
+            if (existing.isEmpty()) {
+                continue; // Released between our insert and read; claim again
+            }
+            IdempotencyRecord record = existing.get();
+            if (record.getState() == IdempotencyState.COMPLETED) {
+                cache.put(keyHash, record);
+                return existing;
+            }
+
+            // A claim this old belongs to a request that died with its node; the same payload may take it over
+            LocalDateTime abandonedBefore = now.minusSeconds(pendingTimeoutSeconds);
+            if (requestHash.equals(record.getRequestHash()) && record.getCreatedAt().isBefore(abandonedBefore)
+                    && jdbcTemplate.update(TAKE_OVER_SQL, Timestamp.valueOf(now), keyHash,
+                            Timestamp.valueOf(abandonedBefore)) == 1) {
+                log.warn("Took over abandoned idempotency claim {}", keyHash);
+                return Optional.empty();
+            }
+            return existing;
+        }
+        throw new IllegalStateException("Could not claim idempotency key " + keyHash);
+    }
+
+    public void complete(String keyHash, String requestHash, int statusCode, String contentType, byte[] body) {
+        int updated = jdbcTemplate.update(COMPLETE_SQL, statusCode, contentType, body, keyHash);
+        if (updated == 0) {
+            // Purged or taken over while the request ran; the response was still sent to this caller
+            log.warn("Idempotency claim {} was gone when the response was stored", keyHash);
+            return;
+        }
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setKeyHash(keyHash);
+        record.setState(IdempotencyState.COMPLETED);
+        record.setRequestHash(requestHash);
+        record.setStatusCode(statusCode);
+        record.setContentType(contentType);
+        record.setResponseBody(body);
+        record.setCreatedAt(LocalDateTime.now());
+        cache.put(keyHash, record);
+    }
+
+    // Failed requests give the key back so the client can retry with it
+    public void release(String keyHash) {
+        jdbcTemplate.update(RELEASE_SQL, keyHash);
+    }
+
+    @Scheduled(fixedRate = 3600000)
+    @Transactional
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        synchronized (cache) {
+            cache.values().removeIf(r -> r.getCreatedAt() != null && r.getCreatedAt().isBefore(cutoff));
+        }
+        int removed = idempotencyRecordRepository.deleteCreatedBefore(cutoff);
+        if (removed > 0) {
+            log.info("Purged {} expired idempotency keys", removed);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.healsync.service;
+
+import com.healsync.entity.DoctorProfile;
+import com.healsync.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class LeastBookedTodayAssignmentPolicy implements DoctorAssignmentPolicy {
+
+    private final AppointmentRepository appointmentRepository;
+
+    @Override
+    public String name() {
+        return "least-booked-today";
+    }
+
+    @Override
+    public DoctorProfile choose(List<DoctorProfile> freeDoctors, LocalDateTime start, LocalDateTime end) {
+        // "Today" is the day of the requested appointment
+        LocalDateTime dayStart = start.toLocalDate().atStartOfDay();
+        List<Long> ids = freeDoctors.stream().map(DoctorProfile::getId).toList();
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : appointmentRepository.countActiveByDoctorIdsBetween(ids, dayStart,
+                dayStart.plusDays(1))) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+
+        // Ties go to the lowest profile ID, matching the order of freeDoctors
+        return freeDoctors.stream()
+                .min(Comparator.comparingLong(d -> counts.getOrDefault(d.getId(), 0L)))
+                .orElseThrow();
+    }
+
+    @Override
+    public int queriesPerChoice() {
+        return 1;
+    }
+}
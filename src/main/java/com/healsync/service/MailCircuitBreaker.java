@@ -0,0 +1,80 @@
+package com.healsync.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stops email delivery while the SMTP relay is failing. After a run of
+ * consecutive batch failures the breaker opens and no batches are attempted
+ * for the cool-down; then a single probe email is allowed through, and its
+ * result closes or re-opens the breaker. Queued emails wait in the outbox
+ * meanwhile, so nothing piles up in memory during an outage.
+ */
+@Component
+@Slf4j
+public class MailCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public MailCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${app.mail.circuit.failure-threshold:3}") int failureThreshold,
+            @Value("${app.mail.circuit.open-seconds:60}") long openSeconds) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openSeconds * 1000;
+
+        Gauge.builder("mail.circuit.state", this, b -> b.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+    }
+
+    // Returns how many emails may be attempted now: 0 while open, 1 for the half-open probe
+    public synchronized int permits(int requested) {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                return 0;
+            }
+            state = State.HALF_OPEN;
+            log.info("Mail circuit half-open; sending a probe email");
+        }
+        return state == State.HALF_OPEN ? 1 : requested;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Mail circuit closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("Mail circuit open after {} consecutive failures; pausing delivery for {}s",
+                        consecutiveFailures, openMillis / 1000);
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
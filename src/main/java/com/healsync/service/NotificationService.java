@@ -0,0 +1,162 @@
+package com.healsync.service;
+
+import com.healsync.dto.NotificationDTO;
+import com.healsync.dto.NotificationPageDTO;
+import com.healsync.entity.Notification;
+import com.healsync.event.EmailQueuedEvent;
+import com.healsync.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * User inbox over the notifications table. Unread counts are kept as per-user
+ * counters: loaded once with an index-only COUNT, then adjusted as
+ * notifications are created and marked read. A periodic reconcile re-counts
+ * the cached users in one grouped query to correct any drift.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_CACHED_COUNTERS = 50000;
+    private static final int RECONCILE_CHUNK = 1000;
+    private static final int PREVIEW_LENGTH = 140;
+
+    private final NotificationRepository notificationRepository;
+
+    private final Map<Long, AtomicLong> unreadCounters = Collections.synchronizedMap(
+            new LinkedHashMap<Long, AtomicLong>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, AtomicLong> eldest) {
+                    return size() > MAX_CACHED_COUNTERS;
+                }
+            });
+
+    public NotificationPageDTO getInbox(Long userId, Long cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long beforeId = cursor != null ? cursor : Long.MAX_VALUE;
+
+        // Fetch one extra row to learn whether another page exists
+        List<Notification> rows = notificationRepository.findInboxPage(userId, beforeId,
+                PageRequest.of(0, size + 1));
+        boolean hasMore = rows.size() > size;
+        List<Notification> items = hasMore ? rows.subList(0, size) : rows;
+        Long nextCursor = hasMore ? items.get(items.size() - 1).getId() : null;
+
+        return new NotificationPageDTO(items.stream().map(NotificationService::toDTO).toList(), nextCursor,
+                hasMore, getUnreadCount(userId));
+    }
+
+    private static NotificationDTO toDTO(Notification notification) {
+        return new NotificationDTO(notification.getId(), notification.getTitle(), notification.getSubject(),
+                preview(notification.getMessage()), notification.getCreatedAt(), notification.getIsRead());
+    }
+
+    // Email bodies are rendered HTML; strip markup and keep the first words
+    private static String preview(String message) {
+        if (message == null) {
+            return null;
+        }
+        String text = message.replaceAll("(?is)<(style|script|head)[^>]*>.*?</\\1>", " ")
+                .replaceAll("<[^>]+>", " ")
+                .replace("&nbsp;", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+        return text.length() > PREVIEW_LENGTH ? text.substring(0, PREVIEW_LENGTH - 1) + "\u2026" : text;
+    }
+
+    public long getUnreadCount(Long userId) {
+        return counterFor(userId).get();
+    }
+
+    // A single UPDATE, whatever the number of rows
+    @Transactional
+    public int markRead(Long userId, Collection<Long> ids, boolean all) {
+        int updated;
+        if (all) {
+            updated = notificationRepository.markAllRead(userId);
+        } else if (ids == null || ids.isEmpty()) {
+            return 0;
+        } else {
+            updated = notificationRepository.markRead(userId, ids);
+        }
+
+        if (updated > 0) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    AtomicLong counter = unreadCounters.get(userId);
+                    if (counter != null) {
+                        counter.updateAndGet(n -> Math.max(0, n - updated));
+                    }
+                }
+            });
+        }
+        return updated;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        // Counters not yet loaded pick the new row up from the COUNT on first read
+        AtomicLong counter = unreadCounters.get(event.getUserId());
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.notifications.reconcile-interval-ms:600000}")
+    public void reconcileCounters() {
+        List<Long> userIds;
+        synchronized (unreadCounters) {
+            userIds = new ArrayList<>(unreadCounters.keySet());
+        }
+
+        int corrected = 0;
+        for (int from = 0; from < userIds.size(); from += RECONCILE_CHUNK) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + RECONCILE_CHUNK, userIds.size()));
+            Map<Long, Long> actual = new LinkedHashMap<>();
+            for (Long userId : chunk) {
+                actual.put(userId, 0L);
+            }
+            for (Object[] row : notificationRepository.countUnreadByUserIds(chunk)) {
+                actual.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            for (Map.Entry<Long, Long> entry : actual.entrySet()) {
+                AtomicLong counter = unreadCounters.get(entry.getKey());
+                if (counter != null && counter.getAndSet(entry.getValue()) != entry.getValue()) {
+                    corrected++;
+                }
+            }
+        }
+        if (corrected > 0) {
+            log.info("Reconciled {} unread notification counters", corrected);
+        }
+    }
+
+    private AtomicLong counterFor(Long userId) {
+        AtomicLong counter = unreadCounters.get(userId);
+        if (counter != null) {
+            return counter;
+        }
+        AtomicLong loaded = new AtomicLong(notificationRepository.countByUserIdAndIsReadFalse(userId));
+        AtomicLong existing = unreadCounters.putIfAbsent(userId, loaded);
+        return existing != null ? existing : loaded;
+    }
+}
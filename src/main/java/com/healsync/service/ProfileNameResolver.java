@@ -0,0 +1,96 @@
+package com.healsync.service;
+
+import com.healsync.dto.ProfileNameView;
+import com.healsync.entity.Appointment;
+import com.healsync.repository.DoctorProfileRepository;
+import com.healsync.repository.PatientProfileRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Fills the transient doctor/patient names on appointments with one IN query
+ * per profile type. Resolved names are kept in a per-request identity map, so
+ * a doctor or patient seen earlier in the same request is not queried again.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProfileNameResolver {
+
+    private static final String DOCTOR_NAMES = ProfileNameResolver.class.getName() + ".DOCTOR_NAMES";
+    private static final String PATIENT_NAMES = ProfileNameResolver.class.getName() + ".PATIENT_NAMES";
+    private static final int MAX_IN_SIZE = 1000;
+
+    private final DoctorProfileRepository doctorProfileRepository;
+    private final PatientProfileRepository patientProfileRepository;
+
+    public void populateNames(Collection<Appointment> appointments) {
+        if (appointments == null || appointments.isEmpty()) {
+            return;
+        }
+
+        Map<Long, String> doctorNames = identityMap(DOCTOR_NAMES);
+        Map<Long, String> patientNames = identityMap(PATIENT_NAMES);
+
+        resolveMissing(doctorNames,
+                appointments.stream().map(Appointment::getDoctorId).collect(Collectors.toSet()),
+                doctorProfileRepository::findNamesByIdIn);
+        resolveMissing(patientNames,
+                appointments.stream().map(Appointment::getPatientId).collect(Collectors.toSet()),
+                patientProfileRepository::findNamesByIdIn);
+
+        for (Appointment appointment : appointments) {
+            String doctorName = doctorNames.get(appointment.getDoctorId());
+            if (doctorName != null) {
+                appointment.setDoctorName(doctorName);
+            }
+            String patientName = patientNames.get(appointment.getPatientId());
+            if (patientName != null) {
+                appointment.setPatientName(patientName);
+            }
+        }
+    }
+
+    private void resolveMissing(Map<Long, String> names, Set<Long> ids,
+            Function<Collection<Long>, List<ProfileNameView>> lookup) {
+        List<Long> missing = ids.stream()
+                .filter(id -> id != null && !names.containsKey(id))
+                .toList();
+
+        for (int from = 0; from < missing.size(); from += MAX_IN_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + MAX_IN_SIZE, missing.size()));
+            for (ProfileNameView view : lookup.apply(chunk)) {
+                names.put(view.getId(), view.getFullName());
+            }
+            // Remember profiles that do not exist so they are not looked up again
+            for (Long id : chunk) {
+                names.putIfAbsent(id, null);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, String> identityMap(String name) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            // Outside a web request (schedulers, workers): resolve per call
+            return new HashMap<>();
+        }
+
+        Map<Long, String> map = (Map<Long, String>) attributes.getAttribute(name, RequestAttributes.SCOPE_REQUEST);
+        if (map == null) {
+            map = new HashMap<>();
+            attributes.setAttribute(name, map, RequestAttributes.SCOPE_REQUEST);
+        }
+        return map;
+    }
+}
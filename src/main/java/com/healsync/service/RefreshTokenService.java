@@ -0,0 +1,131 @@
+package com.healsync.service;
+
+import com.healsync.entity.RefreshToken;
+import com.healsync.enums.UserStatus;
+import com.healsync.event.UserStatusChangedEvent;
+import com.healsync.repository.RefreshTokenRepository;
+import com.healsync.security.InvalidRefreshTokenException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Long-lived refresh tokens that let clients obtain new access tokens without
+ * a password check. Tokens are random, stored only as SHA-256 hashes, and
+ * single-use: each refresh marks the presented token used and issues its
+ * successor in the same family. Presenting a token that was already used
+ * means it leaked, so the whole family is revoked and the user must log in
+ * again.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final long ttlMillis;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            @Value("${app.jwt-refresh-expiration-milliseconds}") long ttlMillis) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttlMillis = ttlMillis;
+    }
+
+    // Starts a new family; called on login and registration
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    // Reuse detection revokes the family and then rejects, so that write must survive the exception
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken token = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(InvalidRefreshTokenException::new);
+        if (token.getRevokedAt() != null || token.getExpiresAt().isBefore(now)) {
+            throw new InvalidRefreshTokenException();
+        }
+
+        // Conditional update, so two requests racing with the same token cannot both succeed
+        if (refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            log.warn("Refresh token reuse for user {}; revoked token family {}", token.getUserId(),
+                    token.getFamilyId());
+            throw new InvalidRefreshTokenException();
+        }
+        return new Rotation(token.getUserId(), issue(token.getUserId(), token.getFamilyId()));
+    }
+
+    // Logout: ends this login's family; unknown tokens are ignored
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onUserStatusChanged(UserStatusChangedEvent event) {
+        if (event.getStatus() != UserStatus.ACTIVE) {
+            refreshTokenRepository.revokeAllForUser(event.getUserId(), LocalDateTime.now());
+        }
+    }
+
+    // Used tokens are kept until they expire so reuse can still be detected
+    @Scheduled(fixedRate = 3600000)
+    @Transactional
+    public void purgeExpired() {
+        int removed = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (removed > 0) {
+            log.info("Purged {} expired refresh tokens", removed);
+        }
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setUserId(userId);
+        token.setTokenHash(hash(rawToken));
+        token.setFamilyId(familyId);
+        token.setExpiresAt(LocalDateTime.now().plus(ttlMillis, ChronoUnit.MILLIS));
+        refreshTokenRepository.save(token);
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record Rotation(Long userId, String refreshToken) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.healsync.service;
+
+import com.healsync.entity.Appointment;
+import com.healsync.entity.PatientProfile;
+import com.healsync.entity.User;
+import com.healsync.enums.AppointmentStatus;
+import com.healsync.event.AppointmentChangedEvent;
+import com.healsync.repository.AppointmentRepository;
+import com.healsync.repository.PatientProfileRepository;
+import com.healsync.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Emails patients ahead of confirmed appointments at the configured offsets.
+ * Reminders wait in per-minute buckets. Each minute the scheduler loads the
+ * next slice of confirmed appointments past a watermark with one range scan on
+ * idx_start_date_time, so only the look-ahead horizon is ever in memory, then
+ * fires the buckets that are due. A row in appointment_reminders is inserted
+ * with the email in one transaction, so restarts and other nodes never send a
+ * reminder twice; status is re-checked at send time.
+ */
+@Service
+@Slf4j
+public class ReminderScheduler {
+
+    private static final String CLAIM_SQL = "INSERT IGNORE INTO appointment_reminders "
+            + "(appointment_id, offset_minutes) VALUES (?, ?)";
+
+    private final AppointmentRepository appointmentRepository;
+    private final PatientProfileRepository patientProfileRepository;
+    private final UserRepository userRepository;
+    private final ProfileNameResolver profileNameResolver;
+    private final EmailService emailService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final List<Duration> offsets;
+    private final Duration horizon;
+    private final Duration grace;
+
+    // Minute (truncated fire time) -> reminders due in that minute
+    private final NavigableMap<LocalDateTime, ConcurrentLinkedQueue<Reminder>> buckets = new ConcurrentSkipListMap<>();
+    // Appointments starting at or before this instant have had their reminders bucketed
+    private volatile LocalDateTime watermark;
+
+    public ReminderScheduler(
+            AppointmentRepository appointmentRepository,
+            PatientProfileRepository patientProfileRepository,
+            UserRepository userRepository,
+            ProfileNameResolver profileNameResolver,
+            EmailService emailService,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.reminders.offsets:24h,1h}") String offsets,
+            @Value("${app.reminders.grace:30m}") String grace) {
+        this.appointmentRepository = appointmentRepository;
+        this.patientProfileRepository = patientProfileRepository;
+        this.userRepository = userRepository;
+        this.profileNameResolver = profileNameResolver;
+        this.emailService = emailService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+
+        this.offsets = Arrays.stream(offsets.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(DurationStyle::detectAndParse)
+                .sorted(Comparator.reverseOrder())
+                .toList();
+        this.grace = DurationStyle.detectAndParse(grace);
+        // Load far enough ahead that the longest offset is bucketed before it falls due
+        Duration longest = this.offsets.isEmpty() ? Duration.ZERO : this.offsets.get(0);
+        this.horizon = longest.plusMinutes(10);
+        // On startup, pick up reminders missed within the grace period
+        this.watermark = LocalDateTime.now().minus(grace).truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    @Scheduled(cron = "${app.reminders.cron:0 * * * * *}")
+    public synchronized void tick() {
+        if (offsets.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        loadUntil(now.plus(horizon));
+        fireDue(now);
+    }
+
+    // A confirmation behind the watermark would otherwise never be bucketed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.getStatus() != AppointmentStatus.CONFIRMED || event.getStartDateTime().isAfter(watermark)) {
+            return;
+        }
+        schedule(event.getAppointmentId(), event.getStartDateTime(), LocalDateTime.now());
+    }
+
+    private void loadUntil(LocalDateTime until) {
+        LocalDateTime from = watermark;
+        if (!until.isAfter(from)) {
+            return;
+        }
+        List<Appointment> slice = appointmentRepository.findConfirmedStartingBetween(from, until);
+        LocalDateTime now = LocalDateTime.now();
+        for (Appointment appointment : slice) {
+            schedule(appointment.getId(), appointment.getStartDateTime(), now);
+        }
+        watermark = until;
+        if (!slice.isEmpty()) {
+            log.debug("Bucketed reminders for {} appointments starting {} - {}", slice.size(), from, until);
+        }
+    }
+
+    private void schedule(Long appointmentId, LocalDateTime start, LocalDateTime now) {
+        for (Duration offset : offsets) {
+            LocalDateTime fireAt = start.minus(offset);
+            // Skip reminders whose moment passed beyond the grace period, or whose appointment has begun
+            if (fireAt.isBefore(now.minus(grace)) || !start.isAfter(now)) {
+                continue;
+            }
+            LocalDateTime minute = fireAt.isBefore(now) ? now.truncatedTo(ChronoUnit.MINUTES)
+                    : fireAt.truncatedTo(ChronoUnit.MINUTES);
+            buckets.computeIfAbsent(minute, m -> new ConcurrentLinkedQueue<>())
+                    .add(new Reminder(appointmentId, offset));
+        }
+    }
+
+    private void fireDue(LocalDateTime now) {
+        List<Reminder> due = new ArrayList<>();
+        NavigableMap<LocalDateTime, ConcurrentLinkedQueue<Reminder>> ready = buckets.headMap(now, true);
+        while (!ready.isEmpty()) {
+            Map.Entry<LocalDateTime, ConcurrentLinkedQueue<Reminder>> bucket = ready.pollFirstEntry();
+            due.addAll(bucket.getValue());
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        try {
+            Integer sent = transactionTemplate.execute(status -> send(due));
+            log.info("Sent {} appointment reminders ({} due)", sent, due.size());
+        } catch (Exception e) {
+            // Nothing was recorded; put them back for the next tick
+            log.error("Failed to send {} appointment reminders", due.size(), e);
+            LocalDateTime next = now.plusMinutes(1).truncatedTo(ChronoUnit.MINUTES);
+            buckets.computeIfAbsent(next, m -> new ConcurrentLinkedQueue<>()).addAll(due);
+        }
+    }
+
+    private int send(List<Reminder> due) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Appointment> appointments = appointmentRepository.findAllById(
+                due.stream().map(Reminder::appointmentId).distinct().toList()).stream()
+                .filter(a -> a.getStatus() == AppointmentStatus.CONFIRMED && a.getStartDateTime().isAfter(now))
+                .collect(Collectors.toMap(Appointment::getId, Function.identity()));
+        if (appointments.isEmpty()) {
+            return 0;
+        }
+
+        profileNameResolver.populateNames(appointments.values());
+        Map<Long, PatientProfile> patients = patientProfileRepository.findAllById(
+                appointments.values().stream().map(Appointment::getPatientId).distinct().toList()).stream()
+                .collect(Collectors.toMap(PatientProfile::getId, Function.identity()));
+        Map<Long, User> users = userRepository.findAllById(
+                patients.values().stream().map(PatientProfile::getUserId).toList()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        int sent = 0;
+        for (Reminder reminder : due) {
+            Appointment appointment = appointments.get(reminder.appointmentId());
+            PatientProfile patient = appointment != null ? patients.get(appointment.getPatientId()) : null;
+            User user = patient != null ? users.get(patient.getUserId()) : null;
+            if (user == null) {
+                continue;
+            }
+            // The claim row and the outbox email commit together, so each reminder goes out once
+            int claimed = jdbcTemplate.update(CLAIM_SQL, reminder.appointmentId(), reminder.offset().toMinutes());
+            if (claimed == 0) {
+                continue;
+            }
+            emailService.sendAppointmentReminder(
+                    user.getId(),
+                    user.getEmail(),
+                    patient.getFullName(),
+                    appointment.getDoctorName(),
+                    appointment.getStartDateTime().toString(),
+                    describe(reminder.offset()));
+            sent++;
+        }
+        return sent;
+    }
+
+    private static String describe(Duration offset) {
+        long hours = offset.toHours();
+        if (hours > 0 && offset.toMinutesPart() == 0) {
+            return hours == 1 ? "1 hour" : hours + " hours";
+        }
+        long minutes = offset.toMinutes();
+        return minutes == 1 ? "1 minute" : minutes + " minutes";
+    }
+
+    private record Reminder(Long appointmentId, Duration offset) {
+    }
+}
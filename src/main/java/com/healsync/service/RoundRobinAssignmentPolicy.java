@@ -0,0 +1,29 @@
+package com.healsync.service;
+
+import com.healsync.entity.DoctorProfile;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class RoundRobinAssignmentPolicy implements DoctorAssignmentPolicy {
+
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return "round-robin";
+    }
+
+    @Override
+    public DoctorProfile choose(List<DoctorProfile> freeDoctors, LocalDateTime start, LocalDateTime end) {
+        // freeDoctors arrive ordered by ID, so the rotation is stable per specialization
+        String specialization = freeDoctors.get(0).getSpecialization();
+        int next = cursors.computeIfAbsent(specialization, s -> new AtomicInteger()).getAndIncrement();
+        return freeDoctors.get(Math.floorMod(next, freeDoctors.size()));
+    }
+}
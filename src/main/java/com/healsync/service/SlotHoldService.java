@@ -0,0 +1,243 @@
+package com.healsync.service;
+
+import com.healsync.dto.SlotHoldDTO;
+import com.healsync.entity.DoctorProfile;
+import com.healsync.repository.DoctorProfileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Short-lived reservations a patient places on a slot while completing a
+ * booking. Holds count as busy for everyone else. Expiry runs on a hashed
+ * timing wheel with one-second ticks: each tick drains only the bucket due at
+ * that second, so releasing expired holds never scans the live set.
+ *
+ * <p>Each patient may hold only a few slots at once, and only the patient who
+ * placed a hold can release it. Holds live in this node's memory: in a
+ * multi-node deployment a hold is honoured only by requests routed to the node
+ * that placed it. That is acceptable because a hold is a courtesy to the
+ * patient; double bookings are still prevented by the doctor-day row locks.
+ */
+@Service
+@Slf4j
+public class SlotHoldService {
+
+    // 512 one-second buckets: one revolution covers the longest allowed TTL
+    private static final int WHEEL_SIZE = 512;
+    private static final int MAX_TTL_SECONDS = 300;
+
+    private final DoctorProfileRepository doctorProfileRepository;
+    private final DoctorScheduleIndex doctorScheduleIndex;
+    private final long ttlSeconds;
+    private final int maxHoldsPerPatient;
+
+    // Per-doctor and per-patient maps are removed once empty, under the map's own lock
+    private final Map<Long, Map<String, Hold>> holdsByDoctor = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Hold>> holdsByPatient = new ConcurrentHashMap<>();
+    private final Map<String, Hold> holdsById = new ConcurrentHashMap<>();
+    private final Queue<Hold>[] wheel;
+    private volatile long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public SlotHoldService(
+            DoctorProfileRepository doctorProfileRepository,
+            DoctorScheduleIndex doctorScheduleIndex,
+            @Value("${app.booking.hold-ttl-seconds:180}") long ttlSeconds,
+            @Value("${app.booking.max-holds-per-patient:2}") int maxHoldsPerPatient) {
+        this.doctorProfileRepository = doctorProfileRepository;
+        this.doctorScheduleIndex = doctorScheduleIndex;
+        this.ttlSeconds = Math.max(1, Math.min(ttlSeconds, MAX_TTL_SECONDS));
+        this.maxHoldsPerPatient = Math.max(1, maxHoldsPerPatient);
+
+        this.wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = currentTick();
+    }
+
+    public SlotHoldDTO placeHold(Long doctorUserId, Long patientUserId, LocalDateTime start, LocalDateTime end) {
+        if (start.isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Cannot hold a slot in the past. Please select a future time slot.");
+        }
+        if (!end.isAfter(start)) {
+            throw new RuntimeException("Invalid appointment duration.");
+        }
+
+        DoctorProfile doctor = doctorProfileRepository.findByUserId(doctorUserId)
+                .orElseThrow(() -> new RuntimeException("Doctor profile not found for user ID: " + doctorUserId));
+        if (doctorScheduleIndex.isBusy(doctor.getId(), start, end)) {
+            throw new RuntimeException("Doctor has an overlapping appointment at this time");
+        }
+
+        long expiresAtTick = currentTick() + ttlSeconds;
+        Hold hold = new Hold(UUID.randomUUID().toString(), doctor.getId(), patientUserId, start, end, expiresAtTick);
+
+        while (true) {
+            Map<String, Hold> doctorHolds = holdsByDoctor.computeIfAbsent(doctor.getId(),
+                    id -> new ConcurrentHashMap<>());
+            synchronized (doctorHolds) {
+                // Lost a race with remove() dropping the emptied map; start again with a fresh one
+                if (holdsByDoctor.get(doctor.getId()) != doctorHolds) {
+                    continue;
+                }
+                long now = currentTick();
+                for (Hold other : doctorHolds.values()) {
+                    if (other.isLive(now) && other.overlaps(start, end)) {
+                        if (!other.patientUserId().equals(patientUserId)) {
+                            throw new RuntimeException(
+                                    "This slot is currently held by another patient. Please choose another time.");
+                        }
+                        // The same patient picked a different time: the new hold replaces the old one
+                        remove(other);
+                    }
+                }
+                // Removing the replaced hold may have emptied and dropped this map
+                if (holdsByDoctor.get(doctor.getId()) != doctorHolds) {
+                    continue;
+                }
+                addPatientHold(hold, now);
+                doctorHolds.put(hold.holdId(), hold);
+                holdsById.put(hold.holdId(), hold);
+                break;
+            }
+        }
+        wheel[(int) (expiresAtTick % WHEEL_SIZE)].add(hold);
+
+        log.debug("Hold {} placed on doctor profile {} {} - {} for patient {}", hold.holdId(), doctor.getId(),
+                start, end, patientUserId);
+        return new SlotHoldDTO(hold.holdId(), doctorUserId, start, end, toDateTime(expiresAtTick));
+    }
+
+    // Returns false when there is no such hold or it belongs to someone else
+    public boolean releaseHold(String holdId, Long patientUserId) {
+        Hold hold = holdsById.get(holdId);
+        if (hold == null || !hold.patientUserId().equals(patientUserId)) {
+            return false;
+        }
+        remove(hold);
+        return true;
+    }
+
+    // Releases the patient's own holds on a window once it has been booked
+    public void releaseHolds(Long doctorProfileId, Long patientUserId, LocalDateTime start, LocalDateTime end) {
+        Map<String, Hold> doctorHolds = holdsByDoctor.get(doctorProfileId);
+        if (doctorHolds == null) {
+            return;
+        }
+        for (Hold hold : doctorHolds.values()) {
+            if (hold.patientUserId().equals(patientUserId) && hold.overlaps(start, end)) {
+                remove(hold);
+            }
+        }
+    }
+
+    public boolean isHeldByOther(Long doctorProfileId, LocalDateTime start, LocalDateTime end, Long patientUserId) {
+        Map<String, Hold> doctorHolds = holdsByDoctor.get(doctorProfileId);
+        if (doctorHolds == null) {
+            return false;
+        }
+        long now = currentTick();
+        for (Hold hold : doctorHolds.values()) {
+            if (hold.isLive(now) && hold.overlaps(start, end) && !hold.patientUserId().equals(patientUserId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isHeld(Long doctorProfileId, LocalDateTime start, LocalDateTime end) {
+        return isHeldByOther(doctorProfileId, start, end, null);
+    }
+
+    // Advances the wheel; catches up on ticks missed while the scheduler was busy
+    @Scheduled(fixedRate = 1000)
+    public void expireHolds() {
+        long now = currentTick();
+        for (long tick = lastTick + 1; tick <= now; tick++) {
+            Queue<Hold> bucket = wheel[(int) (tick % WHEEL_SIZE)];
+            for (int n = bucket.size(); n > 0; n--) {
+                Hold hold = bucket.poll();
+                if (hold == null) {
+                    break;
+                }
+                if (hold.expiresAtTick() <= tick) {
+                    remove(hold);
+                } else {
+                    bucket.add(hold); // Due on a later revolution
+                }
+            }
+        }
+        lastTick = now;
+    }
+
+    // Called with the doctor's map locked; the patient's map is only ever locked inside it
+    private void addPatientHold(Hold hold, long now) {
+        while (true) {
+            Map<String, Hold> patientHolds = holdsByPatient.computeIfAbsent(hold.patientUserId(),
+                    id -> new ConcurrentHashMap<>());
+            synchronized (patientHolds) {
+                if (holdsByPatient.get(hold.patientUserId()) != patientHolds) {
+                    continue;
+                }
+                long live = patientHolds.values().stream().filter(h -> h.isLive(now)).count();
+                if (live >= maxHoldsPerPatient) {
+                    throw new RuntimeException("You can hold at most " + maxHoldsPerPatient
+                            + " slots at a time. Release a hold or complete a booking first.");
+                }
+                patientHolds.put(hold.holdId(), hold);
+                return;
+            }
+        }
+    }
+
+    private void remove(Hold hold) {
+        holdsById.remove(hold.holdId(), hold);
+        removeFrom(holdsByDoctor, hold.doctorProfileId(), hold);
+        removeFrom(holdsByPatient, hold.patientUserId(), hold);
+    }
+
+    private static void removeFrom(Map<Long, Map<String, Hold>> index, Long key, Hold hold) {
+        Map<String, Hold> holds = index.get(key);
+        if (holds == null) {
+            return;
+        }
+        synchronized (holds) {
+            holds.remove(hold.holdId(), hold);
+            if (holds.isEmpty()) {
+                index.remove(key, holds);
+            }
+        }
+    }
+
+    private static long currentTick() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static LocalDateTime toDateTime(long tick) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(tick), ZoneId.systemDefault());
+    }
+
+    private record Hold(String holdId, Long doctorProfileId, Long patientUserId, LocalDateTime start,
+            LocalDateTime end, long expiresAtTick) {
+
+        boolean isLive(long now) {
+            return expiresAtTick > now;
+        }
+
+        boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+            return start.isBefore(otherEnd) && end.isAfter(otherStart);
+        }
+    }
+}
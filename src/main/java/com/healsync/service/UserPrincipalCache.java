@@ -0,0 +1,138 @@
+package com.healsync.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healsync.entity.DoctorProfile;
+import com.healsync.entity.PatientProfile;
+import com.healsync.entity.User;
+import com.healsync.enums.UserRole;
+import com.healsync.enums.UserStatus;
+import com.healsync.event.UserChangedEvent;
+import com.healsync.event.UserStatusChangedEvent;
+import com.healsync.repository.DoctorProfileRepository;
+import com.healsync.repository.PatientProfileRepository;
+import com.healsync.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Caches what request handling needs to know about a user: ID, role, status
+ * and the patient or doctor profile ID the appointment tables are keyed by.
+ * Each user is loaded once and then served from memory until evicted by size
+ * or TTL, or invalidated after commit by a UserChangedEvent or
+ * UserStatusChangedEvent. The TTL bounds staleness for changes made on other
+ * nodes. Users that do not exist are not cached.
+ */
+@Service
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final PatientProfileRepository patientProfileRepository;
+    private final DoctorProfileRepository doctorProfileRepository;
+
+    private final Cache<Long, CachedUser> byUserId;
+    // Emails never change, so this index only needs dropping along with the user
+    private final Cache<String, Long> userIdByEmail;
+
+    public UserPrincipalCache(
+            UserRepository userRepository,
+            PatientProfileRepository patientProfileRepository,
+            DoctorProfileRepository doctorProfileRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.user-principals.max-size:10000}") long maxSize,
+            @Value("${app.cache.user-principals.ttl:10m}") String ttl) {
+        this.userRepository = userRepository;
+        this.patientProfileRepository = patientProfileRepository;
+        this.doctorProfileRepository = doctorProfileRepository;
+
+        Duration expiry = DurationStyle.detectAndParse(ttl);
+        this.byUserId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expiry)
+                .recordStats()
+                .build();
+        this.userIdByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expiry)
+                .recordStats()
+                .build();
+
+        // Exposes cache.gets{result=hit|miss}, cache.evictions and cache.size per cache
+        CaffeineCacheMetrics.monitor(meterRegistry, byUserId, "userPrincipals");
+        CaffeineCacheMetrics.monitor(meterRegistry, userIdByEmail, "userIdsByEmail");
+    }
+
+    public Optional<CachedUser> findByUserId(Long userId) {
+        return Optional.ofNullable(byUserId.get(userId, this::load));
+    }
+
+    public Optional<CachedUser> findByEmail(String email) {
+        Long userId = userIdByEmail.get(email, e -> userRepository.findByEmail(e).map(this::cache).orElse(null));
+        return userId != null ? findByUserId(userId) : Optional.empty();
+    }
+
+    public CachedUser getByEmail(String email) {
+        return findByEmail(email).orElseThrow(() -> new RuntimeException("User not found: " + email));
+    }
+
+    public Optional<Long> findPatientProfileId(Long userId) {
+        return findByUserId(userId).map(CachedUser::patientProfileId);
+    }
+
+    public Optional<Long> findDoctorProfileId(Long userId) {
+        return findByUserId(userId).map(CachedUser::doctorProfileId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserStatusChanged(UserStatusChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    private void invalidate(Long userId) {
+        CachedUser cached = byUserId.getIfPresent(userId);
+        byUserId.invalidate(userId);
+        if (cached != null) {
+            userIdByEmail.invalidate(cached.email());
+        }
+    }
+
+    private CachedUser load(Long userId) {
+        return userRepository.findById(userId).map(this::toCachedUser).orElse(null);
+    }
+
+    // Fills the by-ID cache from a user already loaded by email, saving a second query
+    private Long cache(User user) {
+        byUserId.put(user.getId(), toCachedUser(user));
+        return user.getId();
+    }
+
+    private CachedUser toCachedUser(User user) {
+        Long patientProfileId = null;
+        Long doctorProfileId = null;
+        if (user.getRole() == UserRole.PATIENT) {
+            patientProfileId = patientProfileRepository.findByUserId(user.getId())
+                    .map(PatientProfile::getId).orElse(null);
+        } else if (user.getRole() == UserRole.DOCTOR) {
+            doctorProfileId = doctorProfileRepository.findByUserId(user.getId())
+                    .map(DoctorProfile::getId).orElse(null);
+        }
+        return new CachedUser(user.getId(), user.getEmail(), user.getRole(), user.getStatus(),
+                patientProfileId, doctorProfileId);
+    }
+
+    public record CachedUser(Long userId, String email, UserRole role, UserStatus status, Long patientProfileId,
+            Long doctorProfileId) {
+    }
+}
@@ -0,0 +1,24 @@
+-- ========================================
+-- HealSync Platform - Email Retries and Dead Letters
+-- ========================================
+
+
+-- Failed sends are retried with backoff; the row is not claimed again before this time
+ALTER TABLE notifications
+    ADD COLUMN next_attempt_at DATETIME;
+
+-- Emails that exhausted their retries, kept for inspection and replay
+CREATE TABLE email_dead_letters (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    notification_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    recipient_email VARCHAR(100) NOT NULL,
+    subject VARCHAR(200) NOT NULL,
+    title VARCHAR(200),
+    message MEDIUMTEXT NOT NULL,
+    attempts INT NOT NULL,
+    last_error VARCHAR(500),
+    failed_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    replayed_at DATETIME,
+    INDEX idx_dead_letter_replayed (replayed_at, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,31 @@
+-- ========================================
+-- HealSync Platform - Clinic Announcements
+-- ========================================
+
+
+-- One row per bulk announcement. The node holding the lease sends it in
+-- chunks and checkpoints last_patient_id after each one, so a restarted or
+-- different node resumes where the previous one stopped.
+CREATE TABLE announcement_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    clinic_id BIGINT NOT NULL,
+    created_by BIGINT NOT NULL,
+    subject VARCHAR(200) NOT NULL,
+    title VARCHAR(200) NOT NULL,
+    message TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    last_patient_id BIGINT NOT NULL DEFAULT 0,
+    sent_count INT NOT NULL DEFAULT 0,
+    failed_count INT NOT NULL DEFAULT 0,
+    lease_owner VARCHAR(64),
+    lease_until DATETIME,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at DATETIME,
+    completed_at DATETIME,
+    FOREIGN KEY (clinic_id) REFERENCES clinics(id) ON DELETE CASCADE,
+    FOREIGN KEY (created_by) REFERENCES users(id) ON DELETE CASCADE,
+    INDEX idx_announcement_status (status, lease_until)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Recipient scan: "has this patient ever had an appointment at the clinic" without touching the rows
+CREATE INDEX idx_appointment_clinic_patient ON appointments(clinic_id, patient_id);
@@ -0,0 +1,9 @@
+-- ========================================
+-- HealSync Platform - Digest Lookups
+-- ========================================
+
+
+-- The dispatcher sends a recipient's first email at once and only digests the
+-- ones that follow within the window, so it looks up each recipient's most
+-- recent send; the digest pass also selects pending rows by recipient
+CREATE INDEX idx_notification_recipient_sent ON notifications(recipient_email, sent_at);
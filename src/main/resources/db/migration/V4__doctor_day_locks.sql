@@ -0,0 +1,14 @@
+-- ========================================
+-- HealSync Platform - Booking Locks
+-- ========================================
+
+
+-- One row per doctor and day; bookings lock it with
+-- INSERT ... ON DUPLICATE KEY UPDATE, which creates the row on first use and
+-- takes an exclusive lock on it either way, so overlap checks and inserts for
+-- the same doctor-day run one at a time across every application node
+CREATE TABLE doctor_day_locks (
+    doctor_id BIGINT NOT NULL,
+    lock_date DATE NOT NULL,
+    PRIMARY KEY (doctor_id, lock_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,21 @@
+-- ========================================
+-- HealSync Platform - Idempotency Keys
+-- ========================================
+
+
+-- POSTs carrying an Idempotency-Key header, replayed on retry. key_hash is
+-- SHA-256 of principal, method, path and the client key. A request claims its
+-- key with a PENDING row before it runs, so a retry on any node sees the claim;
+-- the row becomes COMPLETED with the stored response, or is deleted if the
+-- request fails. request_hash is SHA-256 of the request body and catches a key
+-- reused for a different payload.
+CREATE TABLE idempotency_keys (
+    key_hash CHAR(64) PRIMARY KEY,
+    state VARCHAR(20) NOT NULL,
+    request_hash CHAR(64) NOT NULL,
+    status_code INT NULL,
+    content_type VARCHAR(100),
+    response_body MEDIUMBLOB,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_idempotency_created (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,16 @@
+-- ========================================
+-- HealSync Platform - Email Outbox
+-- ========================================
+
+
+-- EMAIL notifications double as the outbox: they are written in the business
+-- transaction and delivered by a background dispatcher
+ALTER TABLE notifications
+    ADD COLUMN recipient_email VARCHAR(100),
+    ADD COLUMN title VARCHAR(200),
+    ADD COLUMN delivery_status VARCHAR(20),
+    ADD COLUMN attempts INT NOT NULL DEFAULT 0,
+    ADD COLUMN sent_at DATETIME,
+    ADD COLUMN last_error VARCHAR(500);
+
+CREATE INDEX idx_notification_delivery ON notifications(delivery_status, id);
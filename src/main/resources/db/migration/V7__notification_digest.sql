@@ -0,0 +1,8 @@
+-- ========================================
+-- HealSync Platform - Email Digests
+-- ========================================
+
+
+-- Non-urgent emails are held for the digest window and merged per recipient
+ALTER TABLE notifications
+    ADD COLUMN urgent BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,7 @@
+-- ========================================
+-- HealSync Platform - Notification Inbox
+-- ========================================
+
+
+-- Unread counts per user are answered from this index alone
+CREATE INDEX idx_notification_user_read ON notifications(user_id, is_read);
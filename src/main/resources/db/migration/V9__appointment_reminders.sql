@@ -0,0 +1,14 @@
+-- ========================================
+-- HealSync Platform - Appointment Reminders
+-- ========================================
+
+
+-- One row per reminder sent; the primary key makes each (appointment, offset)
+-- reminder send at most once across restarts and nodes
+CREATE TABLE appointment_reminders (
+    appointment_id BIGINT NOT NULL,
+    offset_minutes INT NOT NULL,
+    sent_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (appointment_id, offset_minutes),
+    FOREIGN KEY (appointment_id) REFERENCES appointments(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
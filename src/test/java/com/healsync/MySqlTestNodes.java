@@ -0,0 +1,57 @@
+package com.healsync;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts full application contexts ("nodes") against one MySQL container
+ * shared by every test class in the run, so Flyway migrates it once. Each
+ * call returns a separate context with its own caches and connection pool.
+ * Callers close the contexts they start; the container is removed when the
+ * JVM exits. Test classes using this should be annotated
+ * {@code @Testcontainers(disabledWithoutDocker = true)} so they are skipped
+ * where Docker is not available.
+ */
+public final class MySqlTestNodes {
+
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private MySqlTestNodes() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        return start(Map.of());
+    }
+
+    // Passed as command-line arguments: builder properties are only defaults, which application.properties overrides
+    public static ConfigurableApplicationContext start(Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>(defaults());
+        properties.putAll(overrides);
+        String[] args = properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(HealSyncApplication.class).run(args);
+    }
+
+    private static synchronized Map<String, Object> defaults() {
+        if (!MYSQL.isRunning()) {
+            MYSQL.start();
+        }
+        return Map.ofEntries(
+                Map.entry("server.port", "0"),
+                Map.entry("spring.datasource.url", MYSQL.getJdbcUrl() + "?rewriteBatchedStatements=true"),
+                Map.entry("spring.datasource.username", MYSQL.getUsername()),
+                Map.entry("spring.datasource.password", MYSQL.getPassword()),
+                // Refused at once, so queued emails just wait in the outbox
+                Map.entry("spring.mail.host", "localhost"),
+                Map.entry("spring.mail.port", "1"),
+                Map.entry("spring.jpa.show-sql", "false"),
+                Map.entry("logging.level.com.healsync", "INFO"),
+                Map.entry("logging.level.org.hibernate.SQL", "INFO"),
+                Map.entry("logging.level.org.springframework.security", "INFO"));
+    }
+}
@@ -0,0 +1,155 @@
+package com.healsync.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void sizesBitsAndHashFunctionsForTheExpectedLoad() {
+        // m = -n ln p / (ln 2)^2 rounded up to whole words, k = (m / n) ln 2
+        EmailBloomFilter standard = filter(new UsersTable(), 1_000_000, 0.01);
+        assertThat(standard.bitCount()).isEqualTo(149_767L * Long.SIZE);
+        assertThat(standard.hashCount()).isEqualTo(7);
+
+        EmailBloomFilter small = filter(new UsersTable(), 1000, 0.001);
+        assertThat(small.bitCount()).isEqualTo(225L * Long.SIZE);
+        assertThat(small.hashCount()).isEqualTo(10);
+    }
+
+    @Test
+    void everythingMightBePresentUntilTheFirstScan() {
+        EmailBloomFilter filter = filter(new UsersTable(), 1000, 0.01);
+
+        assertThat(filter.mightContain("nobody@example.com")).isTrue();
+
+        filter.refresh();
+        assertThat(filter.mightContain("nobody@example.com")).isFalse();
+    }
+
+    @Test
+    void neverReportsAnAddedEmailAsAbsent() {
+        UsersTable users = new UsersTable();
+        IntStream.range(0, 5000).forEach(i -> users.add(i + 1, "user" + i + "@example.com"));
+        EmailBloomFilter filter = filter(users, 5000, 0.01);
+        filter.refresh();
+        IntStream.range(5000, 6000).forEach(i -> filter.put("user" + i + "@example.com"));
+
+        for (int i = 0; i < 6000; i++) {
+            assertThat(filter.mightContain("user" + i + "@example.com")).as("user %d", i).isTrue();
+        }
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> filter.mightContain("stranger" + i + "@example.org"))
+                .count();
+        // Sized for 5000 at 1%; 6000 entries push the rate up a little, nowhere near 5%
+        assertThat(falsePositives).isLessThan(500);
+    }
+
+    @Test
+    void normalizesLikeUtf8mb4UnicodeCi() {
+        assertThat(EmailBloomFilter.normalize("John.Doe@Example.COM")).isEqualTo("john.doe@example.com");
+        assertThat(EmailBloomFilter.normalize("José@example.com")).isEqualTo("jose@example.com");
+        assertThat(EmailBloomFilter.normalize("ZOË@CAFÉ.example")).isEqualTo("zoe@cafe.example");
+        // Decomposed input (e + combining acute) matches the precomposed form
+        assertThat(EmailBloomFilter.normalize("Jose\u0301@example.com")).isEqualTo("jose@example.com");
+        assertThat(EmailBloomFilter.normalize("strauß@example.de")).isEqualTo("strauss@example.de");
+        assertThat(EmailBloomFilter.normalize("  padded@example.com ")).isEqualTo("padded@example.com");
+    }
+
+    @Test
+    void variantSpellingsOfARegisteredEmailAreNotMisses() {
+        UsersTable users = new UsersTable();
+        users.add(1, "josé.strauß@example.com");
+        EmailBloomFilter filter = filter(users, 1000, 0.01);
+        filter.refresh();
+
+        assertThat(filter.mightContain("JOSE.STRAUSS@example.com")).isTrue();
+        assertThat(filter.mightContain("José.Strauss@Example.com")).isTrue();
+    }
+
+    @Test
+    void incrementalScanPicksUpIdsCommittedOutOfOrder() {
+        UsersTable users = new UsersTable();
+        users.add(1, "first@example.com");
+        users.add(3, "third@example.com");
+        EmailBloomFilter filter = filter(users, 1000, 0.01);
+        filter.refresh();
+
+        // ID 2 was allocated before 3 but its transaction committed after the scan read 3
+        users.add(2, "late@example.com");
+        filter.refresh();
+
+        assertThat(filter.mightContain("late@example.com")).isTrue();
+    }
+
+    @Test
+    void findCountsOneLookupPerCall() {
+        UsersTable users = new UsersTable();
+        users.add(1, "known@example.com");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EmailBloomFilter filter = new EmailBloomFilter(users, registry, 1000, 0.01, 1000, 3_600_000);
+        filter.refresh();
+
+        assertThat(filter.find("known@example.com", e -> Optional.of(e))).isPresent();
+        assertThat(filter.find("unknown@example.com", e -> Optional.of(e))).isEmpty();
+
+        assertThat(registry.get("email.bloom.lookups").tag("result", "present").counter().count()).isEqualTo(1);
+        assertThat(registry.get("email.bloom.lookups").tag("result", "absent").counter().count()).isEqualTo(1);
+    }
+
+    private static EmailBloomFilter filter(UsersTable users, long expected, double falsePositiveRate) {
+        return new EmailBloomFilter(users, new SimpleMeterRegistry(), expected, falsePositiveRate, 1000, 3_600_000);
+    }
+
+    /**
+     * Stands in for the users table: answers the filter's keyset query
+     * (id greater than the cursor, in ID order, up to the page size).
+     */
+    private static final class UsersTable extends JdbcTemplate {
+
+        private final Map<Long, String> rows = new TreeMap<>();
+
+        void add(long id, String email) {
+            rows.put(id, email);
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            long after = ((Number) args[0]).longValue();
+            int limit = ((Number) args[1]).intValue();
+            List<T> page = new ArrayList<>();
+            for (Map.Entry<Long, String> row : rows.entrySet()) {
+                if (row.getKey() > after && page.size() < limit) {
+                    page.add(map(rowMapper, row.getKey(), row.getValue(), page.size()));
+                }
+            }
+            return page;
+        }
+
+        private static <T> T map(RowMapper<T> rowMapper, long id, String email, int rowNum) {
+            try {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(id);
+                when(rs.getString(2)).thenReturn(email);
+                return rowMapper.mapRow(rs, rowNum);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
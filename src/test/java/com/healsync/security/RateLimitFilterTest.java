@@ -0,0 +1,175 @@
+package com.healsync.security;
+
+import com.healsync.security.RateLimitFilter.Bucket;
+import com.healsync.security.RateLimitFilter.Budget;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3600000L);
+        jwtUtil.init();
+    }
+
+    // --- Bucket arithmetic ---
+
+    @Test
+    void fullBucketAllowsExactlyItsCapacityAtOnce() {
+        Bucket bucket = new Bucket(new Budget(3, SECOND), 0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void tokensRefillOneIntervalApart() {
+        Bucket bucket = new Bucket(new Budget(2, SECOND), 0);
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+
+        assertThat(bucket.tryAcquire(SECOND - 1)).isEqualTo(1);
+        assertThat(bucket.tryAcquire(SECOND)).isZero();
+        assertThat(bucket.tryAcquire(SECOND)).isEqualTo(SECOND);
+        assertThat(bucket.tryAcquire(2 * SECOND)).isZero();
+    }
+
+    @Test
+    void refusedRequestsDoNotConsumeTokens() {
+        Bucket bucket = new Bucket(new Budget(1, SECOND), 0);
+        bucket.tryAcquire(0);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(bucket.tryAcquire(SECOND / 2)).isEqualTo(SECOND / 2);
+        }
+        assertThat(bucket.tryAcquire(SECOND)).isZero();
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToItsCapacity() {
+        Bucket bucket = new Bucket(new Budget(2, SECOND), 0);
+        long later = 100 * SECOND;
+
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void perMinuteBudgetSpacesTokensEvenly() {
+        Budget budget = new Budget(10, 60);
+
+        assertThat(budget.intervalNanos()).isEqualTo(SECOND);
+        assertThat(budget.refillNanos()).isEqualTo(10 * SECOND);
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSecondsAndIsNeverZero() {
+        assertThat(RateLimitFilter.retryAfterSeconds(1)).isEqualTo(1);
+        assertThat(RateLimitFilter.retryAfterSeconds(SECOND)).isEqualTo(1);
+        assertThat(RateLimitFilter.retryAfterSeconds(SECOND + 1)).isEqualTo(2);
+        assertThat(RateLimitFilter.retryAfterSeconds(60 * SECOND)).isEqualTo(60);
+    }
+
+    // --- Client keys ---
+
+    @Test
+    void signInIsKeyedByAddressEvenWithAValidToken() throws Exception {
+        RateLimitFilter filter = filter(1, 1);
+
+        assertThat(send(filter, "POST", "/api/auth/login", "10.0.0.1", token(1L)).getStatus()).isEqualTo(200);
+        MockHttpServletResponse refused = send(filter, "POST", "/api/auth/login", "10.0.0.1", token(2L));
+        assertThat(refused.getStatus()).isEqualTo(429);
+        assertThat(refused.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("60");
+
+        assertThat(send(filter, "POST", "/api/auth/login", "10.0.0.2", token(1L)).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void validTokensAreKeyedByUser() throws Exception {
+        RateLimitFilter filter = filter(1, 1);
+
+        assertThat(send(filter, "GET", "/api/appointments", "10.0.0.1", token(1L)).getStatus()).isEqualTo(200);
+        assertThat(send(filter, "GET", "/api/appointments", "10.0.0.1", token(2L)).getStatus()).isEqualTo(200);
+        assertThat(send(filter, "GET", "/api/appointments", "10.0.0.2", token(1L)).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void forgedTokensFallBackToTheAddress() throws Exception {
+        RateLimitFilter filter = filter(1, 1);
+
+        assertThat(send(filter, "GET", "/api/appointments", "10.0.0.1", forgedToken(1L)).getStatus()).isEqualTo(200);
+        assertThat(send(filter, "GET", "/api/appointments", "10.0.0.1", forgedToken(2L)).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void malformedTokensFallBackToTheAddress() throws Exception {
+        RateLimitFilter filter = filter(1, 1);
+
+        assertThat(send(filter, "GET", "/api/appointments", "10.0.0.1", "not-a-jwt").getStatus()).isEqualTo(200);
+        assertThat(send(filter, "GET", "/api/appointments", "10.0.0.1", null).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void pagesAreNotLimited() throws Exception {
+        RateLimitFilter filter = filter(1, 1);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(send(filter, "GET", "/login", "10.0.0.1", null).getStatus()).isEqualTo(200);
+        }
+    }
+
+    private RateLimitFilter filter(int capacity, int perMinute) {
+        return new RateLimitFilter(jwtUtil, new SimpleMeterRegistry(), true, 1000,
+                capacity, perMinute, capacity, perMinute, capacity, perMinute);
+    }
+
+    private static MockHttpServletResponse send(RateLimitFilter filter, String method, String uri, String address,
+            String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(address);
+        if (token != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private String token(Long userId) {
+        return jwtUtil.generateToken("user" + userId + "@example.com", userId, "PATIENT");
+    }
+
+    // Well-formed and carrying a user ID, but signed with a key the server does not know
+    private static String forgedToken(Long userId) {
+        return Jwts.builder()
+                .subject("user" + userId + "@example.com")
+                .claim("userId", userId)
+                .signWith(Keys.hmacShaKeyFor("a-completely-different-signing-key-of-32+-bytes"
+                        .getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
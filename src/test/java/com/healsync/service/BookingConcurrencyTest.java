@@ -0,0 +1,146 @@
+package com.healsync.service;
+
+import com.healsync.MySqlTestNodes;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Books the same slots from many threads on two application nodes sharing one
+ * MySQL database. Each node is a separate Spring context with its own caches,
+ * schedule index and connection pool, so the only thing serialising them is
+ * the doctor-day row lock. Every slot must end up with exactly one booking.
+ * The nodes share this JVM, so this approximates separate servers: anything
+ * JVM-wide (static state, the common pool) is shared, but no in-process lock
+ * or cache spans the two contexts, which is what the test relies on.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@Slf4j
+class BookingConcurrencyTest {
+
+    private static final int NODES = 2;
+    private static final int THREADS_PER_NODE = 8;
+    private static final int SLOTS_PER_DAY = 10;
+
+    // Seed data: Dr. Smith (user 2, profile 1) and patients John and Sarah (users 4 and 5)
+    private static final long CLINIC_ID = 1L;
+    private static final long DOCTOR_USER_ID = 2L;
+    private static final long DOCTOR_PROFILE_ID = 1L;
+    private static final long[] PATIENT_USER_IDS = { 4L, 5L };
+
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @BeforeAll
+    static void startNodes() {
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(MySqlTestNodes.start());
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void everySlotIsBookedExactlyOnceAcrossNodes() throws InterruptedException {
+        List<LocalDateTime> slots = new ArrayList<>();
+        LocalDate firstDay = LocalDate.now().plusDays(7);
+        for (int day = 0; day < 2; day++) {
+            for (int i = 0; i < SLOTS_PER_DAY; i++) {
+                slots.add(firstDay.plusDays(day).atTime(LocalTime.of(9, 0)).plusMinutes(30L * i));
+            }
+        }
+
+        Map<LocalDateTime, AtomicInteger> winners = new ConcurrentHashMap<>();
+        AtomicInteger rejected = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(NODES * THREADS_PER_NODE);
+        CountDownLatch go = new CountDownLatch(1);
+        for (ConfigurableApplicationContext node : nodes) {
+            AppointmentService appointmentService = node.getBean(AppointmentService.class);
+            BookingLockService bookingLockService = node.getBean(BookingLockService.class);
+            for (int t = 0; t < THREADS_PER_NODE; t++) {
+                long patientUserId = PATIENT_USER_IDS[t % PATIENT_USER_IDS.length];
+                List<LocalDateTime> order = new ArrayList<>(slots);
+                Collections.shuffle(order);
+                pool.execute(() -> {
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (LocalDateTime start : order) {
+                        try {
+                            bookingLockService.retryOnLockFailure(() -> appointmentService.bookAppointment(
+                                    CLINIC_ID, DOCTOR_USER_ID, patientUserId, start, start.plusMinutes(30),
+                                    "Contention test", null));
+                            winners.computeIfAbsent(start, s -> new AtomicInteger()).incrementAndGet();
+                        } catch (RuntimeException e) {
+                            if (e.getMessage() != null && e.getMessage().contains("overlapping")) {
+                                rejected.incrementAndGet();
+                            } else {
+                                unexpected.add(e);
+                            }
+                        }
+                    }
+                });
+            }
+        }
+
+        long started = System.nanoTime();
+        go.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        int attempts = NODES * THREADS_PER_NODE * slots.size();
+        log.info("Booking contention: {} attempts on {} nodes x {} threads in {} ms ({} attempts/s), "
+                + "{} booked, {} rejected", attempts, NODES, THREADS_PER_NODE, elapsedMillis,
+                Math.round(attempts * 1000.0 / Math.max(1, elapsedMillis)), winners.size(), rejected.get());
+
+        assertThat(unexpected).isEmpty();
+        assertThat(winners).hasSize(slots.size());
+        assertThat(winners.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+        assertThat(rejected.get()).isEqualTo(attempts - slots.size());
+
+        // The table is the authority: one live row per slot and no overlapping pair at all
+        JdbcTemplate jdbcTemplate = nodes.get(0).getBean(JdbcTemplate.class);
+        Integer booked = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM appointments WHERE doctor_id = ? AND status <> 'CANCELLED' "
+                        + "AND start_date_time >= ?",
+                Integer.class, DOCTOR_PROFILE_ID, firstDay.atStartOfDay());
+        Integer overlapping = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM appointments a JOIN appointments b ON a.doctor_id = b.doctor_id "
+                        + "AND a.id < b.id AND a.start_date_time < b.end_date_time "
+                        + "AND a.end_date_time > b.start_date_time "
+                        + "WHERE a.doctor_id = ? AND a.status <> 'CANCELLED' AND b.status <> 'CANCELLED'",
+                Integer.class, DOCTOR_PROFILE_ID);
+        assertThat(booked).isEqualTo(slots.size());
+        assertThat(overlapping).isZero();
+    }
+}
@@ -0,0 +1,52 @@
+package com.healsync.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LongSummaryStatistics;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailOutboxDispatcherTest {
+
+    private static final long INITIAL = 30;
+    private static final long MAX = 3600;
+    private static final int SAMPLES = 5000;
+
+    @Test
+    void retryDelayDoublesPerAttemptWithinJitterBounds() {
+        for (int attempts = 1; attempts <= 12; attempts++) {
+            long delay = Math.min(MAX, INITIAL << (attempts - 1));
+            LongSummaryStatistics stats = sample(attempts);
+
+            assertThat(stats.getMin()).as("attempt %d", attempts).isGreaterThanOrEqualTo(delay / 2);
+            assertThat(stats.getMax()).as("attempt %d", attempts).isLessThanOrEqualTo(delay);
+            // Jittered, not fixed: samples must actually spread across the window
+            assertThat(stats.getMax() - stats.getMin()).as("attempt %d", attempts).isGreaterThan(delay / 4);
+        }
+    }
+
+    @Test
+    void firstRetryCoversTheWholeJitterWindow() {
+        LongSummaryStatistics stats = sample(1);
+
+        assertThat(stats.getMin()).isEqualTo(INITIAL / 2);
+        assertThat(stats.getMax()).isEqualTo(INITIAL);
+    }
+
+    @Test
+    void retryDelayIsCappedAndDoesNotOverflow() {
+        for (int attempts : new int[] { 8, 21, 64, Integer.MAX_VALUE }) {
+            LongSummaryStatistics stats = sample(attempts);
+
+            assertThat(stats.getMin()).isGreaterThanOrEqualTo(MAX / 2);
+            assertThat(stats.getMax()).isLessThanOrEqualTo(MAX);
+        }
+    }
+
+    private static LongSummaryStatistics sample(int attempts) {
+        return LongStream.range(0, SAMPLES)
+                .map(i -> EmailOutboxDispatcher.retryDelaySeconds(attempts, INITIAL, MAX))
+                .summaryStatistics();
+    }
+}
@@ -0,0 +1,182 @@
+package com.healsync.service;
+
+import com.healsync.MySqlTestNodes;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives EmailOutboxDispatcher against a real SMTP server (GreenMail on the
+ * port the greenmail profile points at): delivery, a relay outage that opens
+ * the circuit breaker while the emails wait in the outbox, and retries
+ * running out so the email is dead-lettered and later replayed. Each test
+ * starts its own node with short retry and poll intervals and mails a
+ * recipient of its own, since the outbox table is shared with other tests.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class EmailOutboxGreenMailTest {
+
+    // Seed data: patient John (user 4)
+    private static final long USER_ID = 4L;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Test
+    void deliversQueuedEmailAndMarksItSent() {
+        String recipient = recipient();
+        try (ConfigurableApplicationContext node = startNode(Map.of())) {
+            JdbcTemplate jdbcTemplate = node.getBean(JdbcTemplate.class);
+
+            node.getBean(EmailService.class).sendAppointmentCancelled(USER_ID, recipient, "John", "Smith",
+                    "2030-01-15T10:00", "Doctor unavailable");
+
+            await(() -> received(recipient).size() == 1);
+            await(() -> "SENT".equals(status(jdbcTemplate, recipient)));
+            assertThat(received(recipient).get(0).getSubject()).isEqualTo("Appointment Cancelled - HealSync");
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT sent_at IS NOT NULL FROM notifications WHERE recipient_email = ?",
+                    Boolean.class, recipient)).isTrue();
+            assertThat(node.getBean(MailCircuitBreaker.class).getState()).isEqualTo(MailCircuitBreaker.State.CLOSED);
+        }
+    }
+
+    @Test
+    void relayOutageOpensTheBreakerAndKeepsEmailsInTheOutbox() throws Exception {
+        String recipient = recipient();
+        greenMail.stop();
+        try (ConfigurableApplicationContext node = startNode(Map.of(
+                "app.mail.circuit.failure-threshold", "2",
+                "app.mail.circuit.open-seconds", "3600"))) {
+            JdbcTemplate jdbcTemplate = node.getBean(JdbcTemplate.class);
+            MailCircuitBreaker circuitBreaker = node.getBean(MailCircuitBreaker.class);
+            EmailService emailService = node.getBean(EmailService.class);
+
+            for (int i = 0; i < 3; i++) {
+                emailService.sendAppointmentCancelled(USER_ID, recipient, "John", "Smith",
+                        "2030-01-15T1" + i + ":00", "Doctor unavailable");
+            }
+
+            await(() -> circuitBreaker.getState() == MailCircuitBreaker.State.OPEN);
+            // The breaker trips before the failed batch's outcome is committed
+            Thread.sleep(1000);
+            int attempts = totalAttempts(jdbcTemplate, recipient);
+            assertThat(attempts).isPositive();
+
+            // Open for an hour: the dispatcher keeps polling but attempts nothing
+            Thread.sleep(2000);
+            assertThat(totalAttempts(jdbcTemplate, recipient)).isEqualTo(attempts);
+            assertThat(jdbcTemplate.queryForList(
+                    "SELECT delivery_status FROM notifications WHERE recipient_email = ?",
+                    String.class, recipient)).hasSize(3).containsOnly("PENDING");
+            assertThat(deadLetterIds(jdbcTemplate, recipient)).isEmpty();
+        }
+    }
+
+    @Test
+    void exhaustedRetriesAreDeadLetteredAndCanBeReplayed() {
+        String recipient = recipient();
+        greenMail.stop();
+        try (ConfigurableApplicationContext node = startNode(Map.of(
+                "app.mail.outbox.max-attempts", "2",
+                // Never opens, so every retry actually reaches the (missing) relay
+                "app.mail.circuit.failure-threshold", "1000"))) {
+            JdbcTemplate jdbcTemplate = node.getBean(JdbcTemplate.class);
+
+            node.getBean(EmailService.class).sendAppointmentCancelled(USER_ID, recipient, "John", "Smith",
+                    "2030-01-15T10:00", "Doctor unavailable");
+
+            await(() -> deadLetterIds(jdbcTemplate, recipient).size() == 1);
+            assertThat(status(jdbcTemplate, recipient)).isEqualTo("FAILED");
+            assertThat(totalAttempts(jdbcTemplate, recipient)).isEqualTo(2);
+
+            greenMail.start();
+            node.getBean(EmailDeadLetterService.class).replay(deadLetterIds(jdbcTemplate, recipient).get(0));
+
+            await(() -> received(recipient).size() == 1);
+            await(() -> jdbcTemplate.queryForList(
+                    "SELECT delivery_status FROM notifications WHERE recipient_email = ? ORDER BY id",
+                    String.class, recipient).equals(List.of("FAILED", "SENT")));
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT replayed_at IS NOT NULL FROM email_dead_letters WHERE recipient_email = ?",
+                    Boolean.class, recipient)).isTrue();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.profiles.active", "greenmail");
+        properties.put("spring.mail.port", String.valueOf(ServerSetupTest.SMTP.getPort()));
+        properties.put("app.mail.outbox.poll-interval-ms", "200");
+        properties.put("app.mail.retry.initial-backoff-seconds", "1");
+        properties.put("app.mail.retry.max-backoff-seconds", "1");
+        properties.putAll(overrides);
+        return MySqlTestNodes.start(properties);
+    }
+
+    private static String recipient() {
+        return "outbox-" + UUID.randomUUID() + "@example.com";
+    }
+
+    private static List<MimeMessage> received(String recipient) {
+        return Arrays.stream(greenMail.getReceivedMessages())
+                .filter(message -> isAddressedTo(message, recipient))
+                .toList();
+    }
+
+    private static boolean isAddressedTo(MimeMessage message, String recipient) {
+        try {
+            Address[] recipients = message.getAllRecipients();
+            return recipients != null && Arrays.stream(recipients)
+                    .anyMatch(address -> address.toString().equalsIgnoreCase(recipient));
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String status(JdbcTemplate jdbcTemplate, String recipient) {
+        return jdbcTemplate.queryForObject("SELECT delivery_status FROM notifications WHERE recipient_email = ?",
+                String.class, recipient);
+    }
+
+    private static int totalAttempts(JdbcTemplate jdbcTemplate, String recipient) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(attempts), 0) FROM notifications "
+                + "WHERE recipient_email = ?", Integer.class, recipient);
+    }
+
+    private static List<Long> deadLetterIds(JdbcTemplate jdbcTemplate, String recipient) {
+        return jdbcTemplate.queryForList("SELECT id FROM email_dead_letters WHERE recipient_email = ?",
+                Long.class, recipient);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within %s", TIMEOUT).isLessThan(deadline);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
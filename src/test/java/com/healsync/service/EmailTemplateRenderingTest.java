@@ -0,0 +1,60 @@
+package com.healsync.service;
+
+import com.healsync.config.EmailTemplateConfig;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the email template resolver parses each template once and that the
+ * cached templates render escaped markup. Render time and allocation are
+ * measured by EmailRenderingBenchmark in the jmh profile.
+ */
+class EmailTemplateRenderingTest {
+
+    @Test
+    void templatesAreParsedOnceAndRenderedRepeatably() {
+        TemplateEngine engine = engine();
+
+        String first = renderConfirmation(engine, "John Doe");
+        String second = renderConfirmation(engine, "John Doe");
+
+        assertThat(second).isEqualTo(first).contains("Dr. Emily Smith").contains("<title>Appointment Confirmed</title>");
+        assertThat(engine.getConfiguration().getCacheManager().getTemplateCache().size()).isEqualTo(2);
+    }
+
+    @Test
+    void variablesAreEscapedButTheBodyIsInsertedAsMarkup() {
+        String html = renderConfirmation(engine(), "<b>John</b>");
+
+        assertThat(html).contains("&lt;b&gt;John&lt;/b&gt;").doesNotContain("<b>John</b>")
+                .contains("<strong>&lt;b&gt;John&lt;/b&gt;</strong>");
+    }
+
+    // Same two-step render as EmailService: the body template, then the shared layout around it
+    private static String renderConfirmation(TemplateEngine engine, String patientName) {
+        String body = render(engine, "email/appointment-confirmed", Map.of(
+                "patientName", patientName,
+                "doctorName", "Dr. Emily Smith",
+                "dateTime", "Oct 12, 2026 at 10:30 AM"));
+        return render(engine, "email/layout", Map.of("title", "Appointment Confirmed", "body", body));
+    }
+
+    private static String render(TemplateEngine engine, String template, Map<String, Object> variables) {
+        Context context = new Context(Locale.ENGLISH);
+        context.setVariables(variables);
+        return engine.process(template, context);
+    }
+
+    private static TemplateEngine engine() {
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(new EmailTemplateConfig().emailTemplateResolver());
+        return engine;
+    }
+}
@@ -0,0 +1,144 @@
+package com.healsync.service;
+
+import com.healsync.MySqlTestNodes;
+import com.healsync.dto.AuthResponse;
+import com.healsync.dto.LoginRequest;
+import com.healsync.security.PasswordEncoderBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Logs in from many threads at once with the password check on, so every
+ * login runs BCrypt on the bounded password pool. The accounts start with
+ * cheap cost-4 hashes, which the first successful login of each user must
+ * upgrade to the configured cost. Login p50 and p99 are logged as metrics,
+ * not asserted, since wall-clock latency depends on the machine; logins
+ * refused because the pool was saturated are counted separately.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@Slf4j
+class LoginLoadTest {
+
+    private static final int USERS = 8;
+    private static final int THREADS = 32;
+    private static final int LOGINS_PER_THREAD = 20;
+    private static final int BCRYPT_STRENGTH = 10;
+    private static final long MAX_QUEUE_MILLIS = 1000;
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void startApplication() {
+        context = MySqlTestNodes.start(Map.of(
+                "app.security.login-password-check", "true",
+                "app.security.bcrypt-strength", String.valueOf(BCRYPT_STRENGTH),
+                "app.security.password-pool.max-queue-ms", String.valueOf(MAX_QUEUE_MILLIS)));
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void concurrentLoginsVerifyPasswordsAndUpgradeWeakHashes() throws InterruptedException {
+        AuthService authService = context.getBean(AuthService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<String> emails = IntStream.range(0, USERS).mapToObj(i -> "load" + i + "@example.com").toList();
+        BCryptPasswordEncoder weak = new BCryptPasswordEncoder(4);
+        for (String email : emails) {
+            authService.register(email, PASSWORD, "Load Test", LocalDate.of(1990, 1, 1), "OTHER", "0000000000");
+            jdbcTemplate.update("UPDATE users SET password_hash = ? WHERE email = ?", weak.encode(PASSWORD), email);
+        }
+
+        assertThatThrownBy(() -> authService.login(login(emails.get(0), "wrong password")))
+                .hasMessage("Invalid email or password");
+
+        long[] latencies = new long[THREADS * LOGINS_PER_THREAD];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger busy = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            String email = emails.get(t % USERS);
+            pool.execute(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < LOGINS_PER_THREAD; i++) {
+                    long started = System.nanoTime();
+                    try {
+                        AuthResponse response = authService.login(login(email, PASSWORD));
+                        assertThat(response.getRefreshToken()).isNotNull();
+                        latencies[next.getAndIncrement()] = System.nanoTime() - started;
+                    } catch (PasswordEncoderBusyException e) {
+                        busy.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                }
+            });
+        }
+
+        long started = System.nanoTime();
+        go.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(unexpected).isEmpty();
+        int accepted = next.get();
+        assertThat(accepted).isPositive();
+        long[] sorted = Arrays.copyOf(latencies, accepted);
+        Arrays.sort(sorted);
+        long p50 = TimeUnit.NANOSECONDS.toMillis(sorted[(int) (accepted * 0.50)]);
+        long p99 = TimeUnit.NANOSECONDS.toMillis(sorted[Math.min(accepted - 1, (int) (accepted * 0.99))]);
+
+        log.info("Login load: {} logins from {} threads in {} ms ({} logins/s), p50 {} ms, p99 {} ms,"
+                + " {} refused as busy", accepted + busy.get(), THREADS, elapsedMillis,
+                accepted * 1000L / Math.max(1, elapsedMillis), p50, p99, busy.get());
+
+        List<String> hashes = jdbcTemplate.queryForList(
+                "SELECT password_hash FROM users WHERE email LIKE 'load%@example.com'", String.class);
+        assertThat(hashes).hasSize(USERS)
+                .allSatisfy(hash -> assertThat(hash).startsWith("$2a$" + BCRYPT_STRENGTH + "$"));
+    }
+
+    private static LoginRequest login(String email, String password) {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(email);
+        request.setPassword(password);
+        return request;
+    }
+}
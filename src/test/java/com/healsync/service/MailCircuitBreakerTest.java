@@ -0,0 +1,107 @@
+package com.healsync.service;
+
+import com.healsync.service.MailCircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailCircuitBreakerTest {
+
+    private static final int THRESHOLD = 3;
+    private static final int BATCH = 50;
+
+    @Test
+    void staysClosedBelowTheFailureThreshold() {
+        MailCircuitBreaker breaker = breaker(60);
+
+        for (int i = 0; i < THRESHOLD - 1; i++) {
+            breaker.recordFailure();
+        }
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.permits(BATCH)).isEqualTo(BATCH);
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        MailCircuitBreaker breaker = breaker(60);
+
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void opensAtTheThresholdAndBlocksDuringTheCoolDown() {
+        MailCircuitBreaker breaker = breaker(60);
+
+        tripOpen(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.permits(BATCH)).isZero();
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void allowsOneProbeOnceTheCoolDownHasPassed() {
+        MailCircuitBreaker breaker = breaker(0);
+
+        tripOpen(breaker);
+
+        assertThat(breaker.permits(BATCH)).isEqualTo(1);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.permits(BATCH)).isEqualTo(1);
+    }
+
+    @Test
+    void successfulProbeClosesTheCircuit() {
+        MailCircuitBreaker breaker = breaker(0);
+        tripOpen(breaker);
+        breaker.permits(BATCH);
+
+        breaker.recordSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.permits(BATCH)).isEqualTo(BATCH);
+        // The count started over, so one more failure does not reopen it
+        breaker.recordFailure();
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void failedProbeReopensImmediately() {
+        MailCircuitBreaker breaker = breaker(0);
+        tripOpen(breaker);
+        breaker.permits(BATCH);
+
+        // A single failure is enough while half-open, well below the threshold
+        breaker.recordFailure();
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void exposesTheStateAsAGauge() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MailCircuitBreaker breaker = new MailCircuitBreaker(registry, THRESHOLD, 60);
+
+        tripOpen(breaker);
+
+        assertThat(registry.get("mail.circuit.state").gauge().value()).isEqualTo(State.OPEN.ordinal());
+    }
+
+    private static MailCircuitBreaker breaker(long openSeconds) {
+        return new MailCircuitBreaker(new SimpleMeterRegistry(), THRESHOLD, openSeconds);
+    }
+
+    private static void tripOpen(MailCircuitBreaker breaker) {
+        for (int i = 0; i < THRESHOLD; i++) {
+            breaker.recordFailure();
+        }
+    }
+}